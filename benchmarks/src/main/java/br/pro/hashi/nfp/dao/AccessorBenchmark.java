@@ -0,0 +1,104 @@
+package br.pro.hashi.nfp.dao;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmark {
+	private Source source;
+	private Mirror mirror;
+	private Field keyField;
+	private Property keyProperty;
+	private Entry entry;
+	private Map<String, Object> values;
+
+	@Setup
+	public void setup() throws NoSuchFieldException {
+		source = new Source(Entry.class);
+		mirror = source.compile(EntryAdapter.class);
+		keyField = Entry.class.getDeclaredField("key");
+		keyField.setAccessible(true);
+		keyProperty = source.getKeyField();
+		entry = new Entry();
+		entry.setKey("key");
+		entry.setTimestamp(LocalDateTime.now());
+		values = Map.of("timestamp", LocalDateTime.now(), "count", 1);
+	}
+
+	@Benchmark
+	public Object keyReflection() throws IllegalAccessException {
+		return keyField.get(entry);
+	}
+
+	@Benchmark
+	public Object keyHandle() {
+		return keyProperty.get(entry);
+	}
+
+	@Benchmark
+	public Object adaptReflection() throws ReflectiveOperationException {
+		Map<String, Object> adapted = new HashMap<>();
+		Class<?> proxyType = mirror.getType();
+		Constructor<?> constructor = proxyType.getDeclaredConstructor(Entry.class);
+		Entry object = Entry.class.getDeclaredConstructor().newInstance();
+		Object proxy = constructor.newInstance(object);
+		for (String name : values.keySet()) {
+			Object value = values.get(name);
+			String methodName = "get%s%s".formatted(name.substring(0, 1).toUpperCase(), name.substring(1));
+			Method method;
+			try {
+				method = proxyType.getDeclaredMethod(methodName);
+			} catch (NoSuchMethodException exception) {
+				method = null;
+			}
+			if (method == null) {
+				adapted.put(name, value);
+			} else {
+				Field field = Entry.class.getDeclaredField(name);
+				field.setAccessible(true);
+				field.set(object, value);
+				adapted.put(name, method.invoke(proxy));
+			}
+		}
+		return adapted;
+	}
+
+	@Benchmark
+	public Object adaptHandle() {
+		Map<String, Object> adapted = new HashMap<>();
+		Object object = source.instantiate();
+		Object proxy = mirror.wrap(object);
+		for (String name : values.keySet()) {
+			Object value = values.get(name);
+			Property getter = mirror.getGetter(name);
+			if (getter == null) {
+				adapted.put(name, value);
+			} else {
+				source.getField(name).set(object, value);
+				adapted.put(name, getter.get(proxy));
+			}
+		}
+		return adapted;
+	}
+}
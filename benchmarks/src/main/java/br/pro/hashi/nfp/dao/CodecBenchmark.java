@@ -0,0 +1,73 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.cloud.firestore.Mapper;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+	private Codec codec;
+	private Item item;
+	private Map<String, Object> values;
+
+	private Item item(String key, int size) {
+		Item item = new Item();
+		item.setKey(key);
+		item.setName("name %s".formatted(key));
+		item.setKind(Item.Kind.DISK);
+		item.setStock(10);
+		item.setPrice(2.5);
+		item.setActive(true);
+		item.setTags(List.of("a", "b", "c"));
+		for (int i = 0; i < size; i++) {
+			item.getParts().add(item("%s-%d".formatted(key, i), 0));
+		}
+		return item;
+	}
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		codec = new Source(Item.class).getCodec();
+		item = item("key", 4);
+		values = (Map<String, Object>) Mapper.encode(item);
+	}
+
+	@Benchmark
+	public Object encodeMapper() {
+		return Mapper.encode(item);
+	}
+
+	@Benchmark
+	public Object encodeCodec() {
+		return Mapper.encode(codec.encode(item));
+	}
+
+	@Benchmark
+	public Object decodeMapper() {
+		return Mapper.decode(values, Item.class);
+	}
+
+	@Benchmark
+	public Object decodeCodec() {
+		return codec.decode(values);
+	}
+}
@@ -0,0 +1,87 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Documents;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Mapper;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+	private static final int SIZE = 100;
+
+	private Firestore firestore;
+	private Codec codec;
+	private List<DocumentSnapshot> documents;
+
+	private Item item(String key) {
+		Item item = new Item();
+		item.setKey(key);
+		item.setName("name %s".formatted(key));
+		item.setKind(Item.Kind.BOOK);
+		item.setStock(10);
+		item.setPrice(2.5);
+		item.setActive(true);
+		item.setTags(List.of("a", "b", "c"));
+		return item;
+	}
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		firestore = Documents.offline("benchmarks");
+		CollectionReference collection = firestore.collection("items");
+		codec = new Source(Item.class).getCodec();
+		documents = new ArrayList<>();
+		for (int i = 0; i < SIZE; i++) {
+			String key = "key%d".formatted(i);
+			Map<String, Object> values = (Map<String, Object>) Mapper.encode(item(key));
+			documents.add(Documents.snapshot(collection.document(key), values));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		firestore.close();
+	}
+
+	@Benchmark
+	public Object decodeMapper() {
+		List<Item> items = new ArrayList<>();
+		for (DocumentSnapshot document : documents) {
+			items.add(document.toObject(Item.class));
+		}
+		return items;
+	}
+
+	@Benchmark
+	public Object decodeCodec() {
+		List<Item> items = new ArrayList<>();
+		for (DocumentSnapshot document : documents) {
+			items.add((Item) codec.decode(document.getData()));
+		}
+		return items;
+	}
+}
@@ -0,0 +1,47 @@
+package br.pro.hashi.nfp.dao;
+
+import java.time.LocalDateTime;
+
+import br.pro.hashi.nfp.dao.annotation.File;
+import br.pro.hashi.nfp.dao.annotation.Key;
+
+public class Entry {
+	@Key
+	private String key;
+	private LocalDateTime timestamp;
+	@File
+	private String photo;
+	private int count;
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public LocalDateTime getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(LocalDateTime timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	public String getPhoto() {
+		return photo;
+	}
+
+	public void setPhoto(String photo) {
+		this.photo = photo;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public void setCount(int count) {
+		this.count = count;
+	}
+}
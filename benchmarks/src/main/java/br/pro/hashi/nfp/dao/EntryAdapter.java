@@ -0,0 +1,15 @@
+package br.pro.hashi.nfp.dao;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+public class EntryAdapter extends Adapter<Entry> {
+	public long getTimestamp() {
+		return that.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+
+	public void setTimestamp(long timestamp) {
+		that.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC));
+	}
+}
@@ -0,0 +1,91 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import br.pro.hashi.nfp.dao.annotation.Key;
+
+public class Item {
+	public enum Kind {
+		BOOK, DISK, TOOL
+	}
+
+	@Key
+	private String key;
+	private String name;
+	private Kind kind;
+	private long stock;
+	private double price;
+	private boolean active;
+	private List<String> tags;
+	private List<Item> parts;
+
+	public Item() {
+		this.tags = new ArrayList<>();
+		this.parts = new ArrayList<>();
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public void setKind(Kind kind) {
+		this.kind = kind;
+	}
+
+	public long getStock() {
+		return stock;
+	}
+
+	public void setStock(long stock) {
+		this.stock = stock;
+	}
+
+	public double getPrice() {
+		return price;
+	}
+
+	public void setPrice(double price) {
+		this.price = price;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+	public List<String> getTags() {
+		return tags;
+	}
+
+	public void setTags(List<String> tags) {
+		this.tags = tags;
+	}
+
+	public List<Item> getParts() {
+		return parts;
+	}
+
+	public void setParts(List<Item> parts) {
+		this.parts = parts;
+	}
+}
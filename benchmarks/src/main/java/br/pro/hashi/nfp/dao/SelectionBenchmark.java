@@ -0,0 +1,75 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Documents;
+import com.google.cloud.firestore.Firestore;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectionBenchmark {
+	private static final int SIZE = 1000;
+
+	private Firestore firestore;
+	private CollectionReference collection;
+	private Selection selection;
+	private List<DocumentSnapshot> documents;
+
+	private Selection select() {
+		return new Selection(collection, "key", RetryPolicy.NONE)
+				.whereEqualTo("active", true)
+				.whereGreaterThan("stock", 100)
+				.orderBy("stock", true)
+				.select("name", "price")
+				.limit(10);
+	}
+
+	@Setup
+	public void setup() {
+		firestore = Documents.offline("benchmarks");
+		collection = firestore.collection("items");
+		selection = select();
+		documents = new ArrayList<>();
+		for (int i = 0; i < SIZE; i++) {
+			String key = "key%d".formatted(i);
+			Map<String, Object> values = Map.of("key", key, "name", "name %d".formatted(i), "stock", (long) i, "price", 2.5, "active", i % 2 == 0);
+			documents.add(Documents.snapshot(collection.document(key), values));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		firestore.close();
+	}
+
+	@Benchmark
+	public Object build() {
+		return select();
+	}
+
+	@Benchmark
+	public Object evaluate() {
+		return selection.evaluate(documents);
+	}
+}
@@ -0,0 +1,23 @@
+package com.google.cloud.firestore;
+
+import java.util.Map;
+
+import com.google.cloud.NoCredentials;
+
+public final class Documents {
+	public static Firestore offline(String projectId) {
+		return FirestoreOptions.newBuilder()
+				.setProjectId(projectId)
+				.setEmulatorHost("localhost:8080")
+				.setCredentials(NoCredentials.getInstance())
+				.build()
+				.getService();
+	}
+
+	public static DocumentSnapshot snapshot(DocumentReference document, Map<String, Object> values) {
+		return DocumentSnapshot.fromObject((FirestoreRpcContext<?>) document.getFirestore(), document, values, UserDataConverter.NO_DELETES);
+	}
+
+	private Documents() {
+	}
+}
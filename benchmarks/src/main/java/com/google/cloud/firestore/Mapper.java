@@ -0,0 +1,16 @@
+package com.google.cloud.firestore;
+
+import java.util.Map;
+
+public final class Mapper {
+	public static Object encode(Object object) {
+		return CustomClassMapper.convertToPlainJavaTypes(object);
+	}
+
+	public static <T> T decode(Map<String, Object> values, Class<T> type) {
+		return CustomClassMapper.convertToCustomClass(values, type, null);
+	}
+
+	private Mapper() {
+	}
+}
@@ -0,0 +1,149 @@
+package br.pro.hashi.nfp.dao;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.cloud.firestore.FieldValue;
+
+public class Buffer<T> implements AutoCloseable {
+	private final Logger logger;
+	private final DAO<T> dao;
+	private final int capacity;
+	private final Map<String, Map<String, Object>> pending;
+	private final ScheduledExecutorService scheduler;
+	private volatile boolean closed;
+
+	Buffer(DAO<T> dao, int capacity, Duration interval) {
+		this.logger = LoggerFactory.getLogger(Buffer.class);
+		this.dao = dao;
+		this.capacity = capacity;
+		this.pending = new ConcurrentHashMap<>();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "nfp-dao-buffer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.closed = false;
+		long nanos = interval.toNanos();
+		this.scheduler.scheduleWithFixedDelay(this::onTick, nanos, nanos, TimeUnit.NANOSECONDS);
+	}
+
+	private void onTick() {
+		try {
+			Report report = flush();
+			int failures = report.countFailures();
+			if (failures > 0) {
+				logger.warn("Buffer failed to write %d of %d updates".formatted(failures, report.size()));
+			}
+		} catch (RuntimeException exception) {
+			logger.warn("Buffer failed to flush: %s".formatted(exception.getMessage()));
+		}
+	}
+
+	private boolean conflicts(Map<String, Object> previous, Map<String, Object> values) {
+		for (String name : values.keySet()) {
+			if (previous.containsKey(name) && (previous.get(name) instanceof FieldValue || values.get(name) instanceof FieldValue)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean merge(String key, Map<String, Object> values) {
+		boolean[] merged = { true };
+		pending.compute(key, (name, previous) -> {
+			if (previous == null) {
+				return values;
+			}
+			if (conflicts(previous, values)) {
+				merged[0] = false;
+				return previous;
+			}
+			previous.putAll(values);
+			return previous;
+		});
+		return merged[0];
+	}
+
+	public Report update(Map<String, Object> values, Class<? extends Adapter<T>> adapter) {
+		if (closed) {
+			throw new IllegalStateException("Buffer is closed");
+		}
+		if (values == null) {
+			throw new IllegalArgumentException("Field map cannot be null");
+		}
+		values = new HashMap<>(values);
+		String key = dao.prepare(values, adapter);
+		Report report = new Report();
+		while (!merge(key, values)) {
+			report.addAll(flush());
+		}
+		if (pending.size() >= capacity) {
+			report.addAll(flush());
+		}
+		return report;
+	}
+
+	public Report update(Map<String, Object> values) {
+		return update(values, null);
+	}
+
+	public int size() {
+		return pending.size();
+	}
+
+	public synchronized Report flush() {
+		List<String> keys = new ArrayList<>();
+		List<Map<String, Object>> values = new ArrayList<>();
+		for (String key : pending.keySet()) {
+			Map<String, Object> entry = pending.remove(key);
+			if (entry != null) {
+				keys.add(key);
+				values.add(entry);
+			}
+		}
+		if (keys.isEmpty()) {
+			return new Report();
+		}
+		return dao.update(keys, values);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		scheduler.shutdown();
+		Report report = flush();
+		Set<RuntimeException> exceptions = Collections.newSetFromMap(new IdentityHashMap<>());
+		RuntimeException failure = null;
+		for (int i = 0; i < report.size(); i++) {
+			RuntimeException exception = report.getException(i);
+			if (exception != null && exceptions.add(exception)) {
+				if (failure == null) {
+					failure = exception;
+				} else {
+					failure.addSuppressed(exception);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+}
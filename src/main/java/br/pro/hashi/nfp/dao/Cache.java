@@ -0,0 +1,144 @@
+package br.pro.hashi.nfp.dao;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+public class Cache {
+	private record Entry(DocumentSnapshot document, long weight, long deadline) {
+	}
+
+	private final long capacity;
+	private final long ttl;
+	private final ToLongFunction<DocumentSnapshot> weigher;
+	private final Map<String, Entry> entries;
+	private long weight;
+	private long stamp;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public Cache(long capacity, Duration ttl, ToLongFunction<DocumentSnapshot> weigher) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Cache capacity must be positive");
+		}
+		if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+			throw new IllegalArgumentException("Cache TTL must be positive");
+		}
+		if (weigher == null) {
+			throw new IllegalArgumentException("Cache weigher cannot be null");
+		}
+		this.capacity = capacity;
+		if (ttl == null) {
+			this.ttl = 0;
+		} else {
+			this.ttl = ttl.toNanos();
+		}
+		this.weigher = weigher;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		this.weight = 0;
+		this.stamp = 0;
+		this.hits = 0;
+		this.misses = 0;
+		this.evictions = 0;
+	}
+
+	public Cache(int size, Duration ttl) {
+		this(size, ttl, document -> 1);
+	}
+
+	public Cache(int size) {
+		this(size, null);
+	}
+
+	private String join(String path, String key) {
+		return "%s/%s".formatted(path, key);
+	}
+
+	private void remove(String name) {
+		Entry entry = entries.remove(name);
+		if (entry != null) {
+			weight -= entry.weight();
+		}
+	}
+
+	synchronized DocumentSnapshot get(String path, String key) {
+		String name = join(path, key);
+		Entry entry = entries.get(name);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		if (ttl > 0 && System.nanoTime() - entry.deadline() > 0) {
+			remove(name);
+			evictions++;
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.document();
+	}
+
+	synchronized long stamp() {
+		return stamp;
+	}
+
+	synchronized void put(String path, String key, DocumentSnapshot document, long stamp) {
+		if (this.stamp != stamp) {
+			return;
+		}
+		long documentWeight = weigher.applyAsLong(document);
+		if (documentWeight < 0) {
+			throw new IllegalStateException("Cache weigher must not return negative weights");
+		}
+		if (documentWeight > capacity) {
+			return;
+		}
+		String name = join(path, key);
+		remove(name);
+		entries.put(name, new Entry(document, documentWeight, System.nanoTime() + ttl));
+		weight += documentWeight;
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (weight > capacity) {
+			Entry entry = iterator.next();
+			iterator.remove();
+			weight -= entry.weight();
+			evictions++;
+		}
+	}
+
+	synchronized void invalidate(String path, String key) {
+		stamp++;
+		remove(join(path, key));
+	}
+
+	public synchronized void clear() {
+		stamp++;
+		entries.clear();
+		weight = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+}
@@ -0,0 +1,489 @@
+package br.pro.hashi.nfp.dao;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.cloud.firestore.annotation.Exclude;
+
+import br.pro.hashi.nfp.dao.exception.BytecodeFirestoreException;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+abstract class Codec {
+	private static final String ANNOTATION_PACKAGE = Exclude.class.getPackageName();
+
+	private static final Map<Class<?>, Codec> CODECS = new HashMap<>();
+	private static final Set<Class<?>> FAILURES = new HashSet<>();
+	private static List<Class<?>> pending = null;
+
+	protected Class<?> type;
+	protected Converter[] encoders;
+	protected Converter[] decoders;
+
+	static boolean isAnnotated(AnnotatedElement element) {
+		for (Annotation annotation : element.getAnnotations()) {
+			Class<?> annotationType = annotation.annotationType();
+			if (annotationType.getPackageName().equals(ANNOTATION_PACKAGE) && !annotationType.equals(Exclude.class)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static ClassPool pool(Class<?> type) {
+		ClassPool pool = new ClassPool(true);
+		ClassLoader library = Codec.class.getClassLoader();
+		pool.appendClassPath(new LoaderClassPath(library));
+		ClassLoader loader = type.getClassLoader();
+		if (loader != null && loader != library) {
+			pool.insertClassPath(new LoaderClassPath(loader));
+		}
+		return pool;
+	}
+
+	static boolean isVisible(Class<?> type) {
+		if (type.isHidden()) {
+			return false;
+		}
+		try {
+			return Class.forName(type.getName(), false, Codec.class.getClassLoader()) == type;
+		} catch (ClassNotFoundException exception) {
+			return false;
+		}
+	}
+
+	static synchronized void remove(Class<?> type) {
+		CODECS.remove(type);
+		FAILURES.remove(type);
+	}
+
+	static synchronized void remove(ClassLoader loader) {
+		CODECS.keySet().removeIf(type -> type.getClassLoader() == loader);
+		FAILURES.removeIf(type -> type.getClassLoader() == loader);
+	}
+
+	static synchronized Codec of(Class<?> type) {
+		Codec codec = CODECS.get(type);
+		if (codec != null || FAILURES.contains(type)) {
+			return codec;
+		}
+		boolean top = pending == null;
+		if (top) {
+			pending = new ArrayList<>();
+		}
+		try {
+			codec = compile(type);
+			if (codec == null) {
+				FAILURES.add(type);
+				if (top) {
+					for (Class<?> pendingType : pending) {
+						CODECS.remove(pendingType);
+					}
+				}
+			}
+		} finally {
+			if (top) {
+				pending = null;
+			}
+		}
+		return codec;
+	}
+
+	private static String serializedName(String methodName, int prefixLength) {
+		char[] chars = methodName.substring(prefixLength).toCharArray();
+		for (int i = 0; i < chars.length && Character.isUpperCase(chars[i]); i++) {
+			chars[i] = Character.toLowerCase(chars[i]);
+		}
+		return new String(chars);
+	}
+
+	private static boolean isEligible(Class<?> type) {
+		int modifiers = type.getModifiers();
+		if (!Modifier.isPublic(modifiers) || Modifier.isAbstract(modifiers) || type.isInterface() || type.isArray() || type.isEnum()) {
+			return false;
+		}
+		if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+			return false;
+		}
+		if (type.getEnclosingClass() != null && !Modifier.isStatic(modifiers)) {
+			return false;
+		}
+		try {
+			type.getConstructor();
+		} catch (NoSuchMethodException exception) {
+			return false;
+		}
+		if (isAnnotated(type)) {
+			return false;
+		}
+		for (Class<?> ancestor = type; !ancestor.equals(Object.class); ancestor = ancestor.getSuperclass()) {
+			for (Field field : ancestor.getDeclaredFields()) {
+				if (isAnnotated(field)) {
+					return false;
+				}
+			}
+			for (Method method : ancestor.getDeclaredMethods()) {
+				if (isAnnotated(method)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static Codec compile(Class<?> type) {
+		if (!isEligible(type)) {
+			return null;
+		}
+
+		Map<String, Member> getters = new LinkedHashMap<>();
+		Map<String, Member> setters = new LinkedHashMap<>();
+
+		for (Method method : type.getMethods()) {
+			int modifiers = method.getModifiers();
+			if (Modifier.isStatic(modifiers) || method.isBridge() || method.isSynthetic() || method.getDeclaringClass().equals(Object.class) || method.isAnnotationPresent(Exclude.class)) {
+				continue;
+			}
+			String methodName = method.getName();
+			int count = method.getParameterCount();
+			Class<?> returnType = method.getReturnType();
+			String name = null;
+			Map<String, Member> members = null;
+			if (count == 0 && !returnType.equals(void.class)) {
+				if (methodName.startsWith("get") && methodName.length() > 3) {
+					name = serializedName(methodName, 3);
+					members = getters;
+				} else if (methodName.startsWith("is") && methodName.length() > 2) {
+					name = serializedName(methodName, 2);
+					members = getters;
+				}
+			} else if (count == 1 && returnType.equals(void.class)) {
+				if (methodName.startsWith("set") && methodName.length() > 3) {
+					name = serializedName(methodName, 3);
+					members = setters;
+				}
+			}
+			if (members != null && members.put(name, method) != null) {
+				return null;
+			}
+		}
+
+		for (Field field : type.getFields()) {
+			int modifiers = field.getModifiers();
+			if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isAnnotationPresent(Exclude.class)) {
+				continue;
+			}
+			String name = field.getName();
+			getters.putIfAbsent(name, field);
+			if (!Modifier.isFinal(modifiers)) {
+				setters.putIfAbsent(name, field);
+			}
+		}
+
+		for (Class<?> ancestor = type; !ancestor.equals(Object.class); ancestor = ancestor.getSuperclass()) {
+			for (Method method : ancestor.getDeclaredMethods()) {
+				int modifiers = method.getModifiers();
+				if (Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || method.isBridge() || method.isSynthetic()) {
+					continue;
+				}
+				String methodName = method.getName();
+				if (method.getParameterCount() == 1 && methodName.startsWith("set") && methodName.length() > 3 && !setters.containsKey(serializedName(methodName, 3))) {
+					return null;
+				}
+			}
+			for (Field field : ancestor.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+					continue;
+				}
+				String name = field.getName();
+				if (getters.containsKey(name) && !setters.containsKey(name)) {
+					return null;
+				}
+			}
+		}
+
+		Set<String> lowerNames = new HashSet<>();
+		for (String name : getters.keySet()) {
+			if (!lowerNames.add(name.toLowerCase())) {
+				return null;
+			}
+		}
+
+		for (Member member : getters.values()) {
+			if (!isBoxable(rawType(member))) {
+				return null;
+			}
+		}
+		for (Member member : setters.values()) {
+			if (!isBoxable(rawType(member))) {
+				return null;
+			}
+		}
+
+		Codec codec;
+		try {
+			if (!isVisible(type)) {
+				codec = new HandleCodec(type, getters, setters);
+			} else {
+				codec = generate(type, getters, setters);
+			}
+		} catch (CannotCompileException exception) {
+			return null;
+		} catch (NotFoundException exception) {
+			return null;
+		} catch (IOException exception) {
+			return null;
+		} catch (ReflectiveOperationException exception) {
+			return null;
+		}
+		CODECS.put(type, codec);
+		pending.add(type);
+
+		Converter[] encoders = new Converter[getters.size()];
+		int i = 0;
+		for (Member member : getters.values()) {
+			encoders[i] = Converter.of(genericType(member));
+			if (encoders[i] == null) {
+				return null;
+			}
+			i++;
+		}
+		Converter[] decoders = new Converter[setters.size()];
+		i = 0;
+		for (Member member : setters.values()) {
+			decoders[i] = Converter.of(genericType(member));
+			if (decoders[i] == null) {
+				return null;
+			}
+			i++;
+		}
+
+		codec.type = type;
+		codec.encoders = encoders;
+		codec.decoders = decoders;
+		return codec;
+	}
+
+	private static Class<?> rawType(Member member) {
+		if (member instanceof Field) {
+			return ((Field) member).getType();
+		}
+		Method method = (Method) member;
+		if (method.getParameterCount() == 0) {
+			return method.getReturnType();
+		}
+		return method.getParameterTypes()[0];
+	}
+
+	private static Type genericType(Member member) {
+		if (member instanceof Field) {
+			return ((Field) member).getGenericType();
+		}
+		Method method = (Method) member;
+		if (method.getParameterCount() == 0) {
+			return method.getGenericReturnType();
+		}
+		return method.getGenericParameterTypes()[0];
+	}
+
+	private static boolean isBoxable(Class<?> type) {
+		return !type.equals(short.class) && !type.equals(byte.class) && !type.equals(char.class);
+	}
+
+	private static String boxName(Class<?> type) {
+		if (type.equals(boolean.class)) {
+			return "java.lang.Boolean";
+		}
+		if (type.equals(int.class)) {
+			return "java.lang.Integer";
+		}
+		if (type.equals(long.class)) {
+			return "java.lang.Long";
+		}
+		if (type.equals(double.class)) {
+			return "java.lang.Double";
+		}
+		return "java.lang.Float";
+	}
+
+	private static String box(Class<?> type, String expression) {
+		if (type.isPrimitive()) {
+			return "%s.valueOf(%s)".formatted(boxName(type), expression);
+		}
+		return expression;
+	}
+
+	private static String unbox(Class<?> type, String expression) {
+		if (type.isPrimitive()) {
+			return "((%s) %s).%sValue()".formatted(boxName(type), expression, type.getName());
+		}
+		return "(%s) %s".formatted(type.getName(), expression);
+	}
+
+	private static Codec generate(Class<?> type, Map<String, Member> getters, Map<String, Member> setters) throws CannotCompileException, NotFoundException, IOException, ReflectiveOperationException {
+		ClassPool pool = pool(type);
+
+		String typeName = type.getName();
+		String packageName = Codec.class.getPackageName();
+		String uuid = UUID.randomUUID().toString().replace("-", "");
+		String codecName = "%s.Codec%s".formatted(packageName, uuid);
+
+		StringBuilder encodeBody = new StringBuilder();
+		encodeBody.append("java.util.Map encode(java.lang.Object object) {");
+		encodeBody.append("%s that = (%s) object;".formatted(typeName, typeName));
+		encodeBody.append("java.util.Map values = new java.util.HashMap(%d);".formatted(2 * getters.size()));
+		int i = 0;
+		for (String name : getters.keySet()) {
+			Member member = getters.get(name);
+			String expression;
+			if (member instanceof Field) {
+				expression = "that.%s".formatted(member.getName());
+			} else {
+				expression = "that.%s()".formatted(member.getName());
+			}
+			encodeBody.append("values.put(\"%s\", encoders[%d].encode(%s));".formatted(name, i, box(rawType(member), expression)));
+			i++;
+		}
+		encodeBody.append("return values;");
+		encodeBody.append("}");
+
+		StringBuilder decodeBody = new StringBuilder();
+		decodeBody.append("java.lang.Object decode(java.util.Map values) {");
+		decodeBody.append("%s that = new %s();".formatted(typeName, typeName));
+		i = 0;
+		for (String name : setters.keySet()) {
+			Member member = setters.get(name);
+			String expression = unbox(rawType(member), "decoders[%d].decode(values.get(\"%s\"))".formatted(i, name));
+			decodeBody.append("if (values.containsKey(\"%s\")) {".formatted(name));
+			if (member instanceof Field) {
+				decodeBody.append("that.%s = %s;".formatted(member.getName(), expression));
+			} else {
+				decodeBody.append("that.%s(%s);".formatted(member.getName(), expression));
+			}
+			decodeBody.append("}");
+			i++;
+		}
+		decodeBody.append("return that;");
+		decodeBody.append("}");
+
+		CtClass ctCodec = pool.makeClass(codecName);
+		ctCodec.setSuperclass(pool.get(Codec.class.getName()));
+		ctCodec.addConstructor(CtNewConstructor.defaultConstructor(ctCodec));
+		ctCodec.addMethod(CtNewMethod.make(encodeBody.toString(), ctCodec));
+		ctCodec.addMethod(CtNewMethod.make(decodeBody.toString(), ctCodec));
+		byte[] bytecode = ctCodec.toBytecode();
+		ctCodec.detach();
+		Class<?> codecType = MethodHandles.lookup().defineHiddenClass(bytecode, true).lookupClass();
+		return (Codec) codecType.getDeclaredConstructor().newInstance();
+	}
+
+	Class<?> getType() {
+		return type;
+	}
+
+	abstract Map<String, Object> encode(Object object);
+
+	abstract Object decode(Map<String, Object> values);
+
+	private static class HandleCodec extends Codec {
+		private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+		private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+		private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+		private final MethodHandle constructor;
+		private final String[] getterNames;
+		private final MethodHandle[] getters;
+		private final String[] setterNames;
+		private final MethodHandle[] setters;
+
+		private HandleCodec(Class<?> type, Map<String, Member> getters, Map<String, Member> setters) throws ReflectiveOperationException {
+			Lookup lookup = MethodHandles.lookup();
+			this.constructor = lookup.unreflectConstructor(type.getConstructor()).asType(CONSTRUCTOR_TYPE);
+			this.getterNames = getters.keySet().toArray(new String[0]);
+			this.getters = new MethodHandle[getterNames.length];
+			for (int i = 0; i < getterNames.length; i++) {
+				Member member = getters.get(getterNames[i]);
+				MethodHandle getter;
+				if (member instanceof Field) {
+					getter = lookup.unreflectGetter((Field) member);
+				} else {
+					getter = lookup.unreflect((Method) member);
+				}
+				this.getters[i] = getter.asType(GETTER_TYPE);
+			}
+			this.setterNames = setters.keySet().toArray(new String[0]);
+			this.setters = new MethodHandle[setterNames.length];
+			for (int i = 0; i < setterNames.length; i++) {
+				Member member = setters.get(setterNames[i]);
+				MethodHandle setter;
+				if (member instanceof Field) {
+					setter = lookup.unreflectSetter((Field) member);
+				} else {
+					setter = lookup.unreflect((Method) member);
+				}
+				this.setters[i] = setter.asType(SETTER_TYPE);
+			}
+		}
+
+		@Override
+		Map<String, Object> encode(Object object) {
+			Map<String, Object> values = new HashMap<>(2 * getters.length);
+			try {
+				for (int i = 0; i < getters.length; i++) {
+					values.put(getterNames[i], encoders[i].encode((Object) getters[i].invokeExact(object)));
+				}
+			} catch (RuntimeException exception) {
+				throw exception;
+			} catch (Error error) {
+				throw error;
+			} catch (Throwable throwable) {
+				throw new BytecodeFirestoreException(throwable);
+			}
+			return values;
+		}
+
+		@Override
+		Object decode(Map<String, Object> values) {
+			try {
+				Object object = (Object) constructor.invokeExact();
+				for (int i = 0; i < setters.length; i++) {
+					if (values.containsKey(setterNames[i])) {
+						setters[i].invokeExact(object, decoders[i].decode(values.get(setterNames[i])));
+					}
+				}
+				return object;
+			} catch (RuntimeException exception) {
+				throw exception;
+			} catch (Error error) {
+				throw error;
+			} catch (Throwable throwable) {
+				throw new BytecodeFirestoreException(throwable);
+			}
+		}
+	}
+}
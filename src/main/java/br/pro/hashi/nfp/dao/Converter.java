@@ -0,0 +1,336 @@
+package br.pro.hashi.nfp.dao;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.GeoPoint;
+
+abstract class Converter {
+	private static final Converter OBJECT = new Converter() {
+		@Override
+		Object encode(Object value) {
+			return value;
+		}
+
+		@Override
+		Object decode(Object value) {
+			return value;
+		}
+	};
+
+	static Converter of(Type type) {
+		if (type instanceof Class) {
+			return of((Class<?>) type, false);
+		}
+		if (type instanceof ParameterizedType) {
+			ParameterizedType genericType = (ParameterizedType) type;
+			Class<?> rawType = (Class<?>) genericType.getRawType();
+			Type[] types = genericType.getActualTypeArguments();
+			if (rawType.equals(List.class) || rawType.equals(Collection.class)) {
+				Converter element = of(types[0]);
+				if (element == null) {
+					return null;
+				}
+				return new ListConverter(element);
+			}
+			if (rawType.equals(Map.class)) {
+				if (!types[0].equals(String.class)) {
+					return null;
+				}
+				Converter value = of(types[1]);
+				if (value == null) {
+					return null;
+				}
+				return new MapConverter(value);
+			}
+		}
+		return null;
+	}
+
+	static Converter of(Class<?> type, boolean primitive) {
+		if (type.isPrimitive()) {
+			if (type.equals(boolean.class)) {
+				return of(Boolean.class, true);
+			}
+			if (type.equals(int.class)) {
+				return of(Integer.class, true);
+			}
+			if (type.equals(long.class)) {
+				return of(Long.class, true);
+			}
+			if (type.equals(double.class)) {
+				return of(Double.class, true);
+			}
+			if (type.equals(float.class)) {
+				return of(Float.class, true);
+			}
+			return null;
+		}
+		if (type.equals(Object.class)) {
+			return OBJECT;
+		}
+		if (type.equals(String.class) || type.equals(Boolean.class) || type.equals(Timestamp.class) || type.equals(GeoPoint.class) || type.equals(Blob.class) || type.equals(DocumentReference.class)) {
+			return new ValueConverter(type, primitive);
+		}
+		if (type.equals(Integer.class) || type.equals(Long.class) || type.equals(Double.class) || type.equals(Float.class)) {
+			return new NumberConverter(type, primitive);
+		}
+		if (type.equals(Date.class)) {
+			return new DateConverter();
+		}
+		if (type.isEnum()) {
+			for (Field field : type.getFields()) {
+				if (field.isEnumConstant() && Codec.isAnnotated(field)) {
+					return null;
+				}
+			}
+			return new EnumConverter(type);
+		}
+		Codec codec = Codec.of(type);
+		if (codec == null) {
+			return null;
+		}
+		return new CodecConverter(codec);
+	}
+
+	static IllegalArgumentException mismatch(Object value, Class<?> type) {
+		return new IllegalArgumentException("Value %s cannot be converted to %s".formatted(value, type.getName()));
+	}
+
+	abstract Object encode(Object value);
+
+	abstract Object decode(Object value);
+
+	private static class ValueConverter extends Converter {
+		private final Class<?> type;
+		private final boolean primitive;
+
+		private ValueConverter(Class<?> type, boolean primitive) {
+			this.type = type;
+			this.primitive = primitive;
+		}
+
+		@Override
+		Object encode(Object value) {
+			return value;
+		}
+
+		@Override
+		Object decode(Object value) {
+			if (value == null ? primitive : !type.isInstance(value)) {
+				throw mismatch(value, type);
+			}
+			return value;
+		}
+	}
+
+	private static class NumberConverter extends Converter {
+		private final Class<?> type;
+		private final boolean primitive;
+
+		private NumberConverter(Class<?> type, boolean primitive) {
+			this.type = type;
+			this.primitive = primitive;
+		}
+
+		@Override
+		Object encode(Object value) {
+			return value;
+		}
+
+		@Override
+		Object decode(Object value) {
+			if (value == null) {
+				if (primitive) {
+					throw mismatch(value, type);
+				}
+				return null;
+			}
+			if (!(value instanceof Number)) {
+				throw mismatch(value, type);
+			}
+			Number number = (Number) value;
+			if (type.equals(Integer.class)) {
+				if (number.doubleValue() < Integer.MIN_VALUE || number.doubleValue() > Integer.MAX_VALUE) {
+					throw mismatch(value, type);
+				}
+				return number.intValue();
+			}
+			if (type.equals(Long.class)) {
+				if (number instanceof Double && (number.doubleValue() < Long.MIN_VALUE || number.doubleValue() > Long.MAX_VALUE)) {
+					throw mismatch(value, type);
+				}
+				return number.longValue();
+			}
+			if (type.equals(Double.class)) {
+				return number.doubleValue();
+			}
+			return number.floatValue();
+		}
+	}
+
+	private static class DateConverter extends Converter {
+		@Override
+		Object encode(Object value) {
+			return value;
+		}
+
+		@Override
+		Object decode(Object value) {
+			if (value == null || value instanceof Date) {
+				return value;
+			}
+			if (value instanceof Timestamp) {
+				return ((Timestamp) value).toDate();
+			}
+			throw mismatch(value, Date.class);
+		}
+	}
+
+	private static class EnumConverter extends Converter {
+		private final Class<?> type;
+
+		private EnumConverter(Class<?> type) {
+			this.type = type;
+		}
+
+		@Override
+		Object encode(Object value) {
+			if (value == null) {
+				return null;
+			}
+			return ((Enum<?>) value).name();
+		}
+
+		@Override
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Object decode(Object value) {
+			if (value == null) {
+				return null;
+			}
+			if (!(value instanceof String)) {
+				throw mismatch(value, type);
+			}
+			try {
+				return Enum.valueOf((Class<? extends Enum>) type, (String) value);
+			} catch (IllegalArgumentException exception) {
+				throw mismatch(value, type);
+			}
+		}
+	}
+
+	private static class ListConverter extends Converter {
+		private final Converter element;
+
+		private ListConverter(Converter element) {
+			this.element = element;
+		}
+
+		@Override
+		Object encode(Object value) {
+			if (value == null) {
+				return null;
+			}
+			Collection<?> values = (Collection<?>) value;
+			List<Object> encoded = new ArrayList<>(values.size());
+			for (Object item : values) {
+				encoded.add(element.encode(item));
+			}
+			return encoded;
+		}
+
+		@Override
+		Object decode(Object value) {
+			if (value == null) {
+				return null;
+			}
+			if (!(value instanceof List)) {
+				throw mismatch(value, List.class);
+			}
+			List<?> values = (List<?>) value;
+			List<Object> decoded = new ArrayList<>(values.size());
+			for (Object item : values) {
+				decoded.add(element.decode(item));
+			}
+			return decoded;
+		}
+	}
+
+	private static class MapConverter extends Converter {
+		private final Converter value;
+
+		private MapConverter(Converter value) {
+			this.value = value;
+		}
+
+		@Override
+		Object encode(Object value) {
+			if (value == null) {
+				return null;
+			}
+			Map<?, ?> values = (Map<?, ?>) value;
+			Map<String, Object> encoded = new HashMap<>();
+			for (Map.Entry<?, ?> entry : values.entrySet()) {
+				encoded.put((String) entry.getKey(), this.value.encode(entry.getValue()));
+			}
+			return encoded;
+		}
+
+		@Override
+		Object decode(Object value) {
+			if (value == null) {
+				return null;
+			}
+			if (!(value instanceof Map)) {
+				throw mismatch(value, Map.class);
+			}
+			Map<?, ?> values = (Map<?, ?>) value;
+			Map<String, Object> decoded = new HashMap<>();
+			for (Map.Entry<?, ?> entry : values.entrySet()) {
+				decoded.put((String) entry.getKey(), this.value.decode(entry.getValue()));
+			}
+			return decoded;
+		}
+	}
+
+	private static class CodecConverter extends Converter {
+		private final Codec codec;
+
+		private CodecConverter(Codec codec) {
+			this.codec = codec;
+		}
+
+		@Override
+		Object encode(Object value) {
+			if (value == null) {
+				return null;
+			}
+			if (!value.getClass().equals(codec.getType())) {
+				return value;
+			}
+			return codec.encode(value);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Object decode(Object value) {
+			if (value == null) {
+				return null;
+			}
+			if (!(value instanceof Map)) {
+				throw mismatch(value, Map.class);
+			}
+			return codec.decode((Map<String, Object>) value);
+		}
+	}
+}
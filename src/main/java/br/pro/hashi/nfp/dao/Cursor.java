@@ -0,0 +1,80 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+class Cursor implements Iterator<DocumentSnapshot> {
+	private final Query query;
+	private final int size;
+	private final RetryPolicy retryPolicy;
+	private long remaining;
+	private int requested;
+	private CompletableFuture<QuerySnapshot> next;
+	private Iterator<QueryDocumentSnapshot> page;
+
+	Cursor(Query query, int offset, int limit, int size, RetryPolicy retryPolicy) {
+		this.query = query;
+		this.size = size;
+		this.retryPolicy = retryPolicy;
+		if (limit == 0) {
+			this.remaining = Long.MAX_VALUE;
+		} else {
+			this.remaining = limit;
+		}
+		if (offset == 0) {
+			this.next = fetch(query);
+		} else {
+			this.next = fetch(query.offset(offset));
+		}
+		this.page = Collections.emptyIterator();
+	}
+
+	Cursor(Query query, RetryPolicy retryPolicy) {
+		this.query = null;
+		this.size = 0;
+		this.retryPolicy = retryPolicy;
+		this.remaining = 0;
+		this.requested = Integer.MAX_VALUE;
+		this.next = retryPolicy.call(query::get);
+		this.page = Collections.emptyIterator();
+	}
+
+	private CompletableFuture<QuerySnapshot> fetch(Query query) {
+		requested = (int) Math.min(size, remaining);
+		remaining -= requested;
+		return retryPolicy.call(query.limit(requested)::get);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!page.hasNext()) {
+			if (next == null) {
+				return false;
+			}
+			List<QueryDocumentSnapshot> documents = Futures.await(next).getDocuments();
+			if (documents.size() < requested || remaining == 0) {
+				next = null;
+			} else {
+				next = fetch(this.query.startAfter(documents.get(documents.size() - 1)));
+			}
+			page = documents.iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public DocumentSnapshot next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return page.next();
+	}
+}
@@ -1,32 +1,63 @@
 package br.pro.hashi.nfp.dao;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode.Code;
+import com.google.cloud.ReadChannel;
 import com.google.cloud.WriteChannel;
+import com.google.cloud.firestore.BulkWriter;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.TransactionOptions;
 import com.google.cloud.firestore.WriteBatch;
-import com.google.cloud.storage.Acl;
+import com.google.cloud.firestore.WriteResult;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Bucket;
+import com.google.cloud.storage.Storage.BlobWriteOption;
+import com.google.cloud.storage.Storage.PredefinedAcl;
 
-import br.pro.hashi.nfp.dao.exception.AccessFirestoreException;
-import br.pro.hashi.nfp.dao.exception.BytecodeFirestoreException;
+import br.pro.hashi.nfp.dao.Monitor.Operation;
 import br.pro.hashi.nfp.dao.exception.ExecutionFirestoreException;
 import br.pro.hashi.nfp.dao.exception.InterruptedFirestoreException;
 import br.pro.hashi.nfp.dao.exception.QueryFirestoreException;
@@ -36,6 +67,20 @@ import br.pro.hashi.nfp.dao.exception.StorageFirestoreException;
 public abstract class DAO<T> {
 	private static final int CODE_LIMIT = 1500;
 	private static final String CODE_INVALID = "__.*__";
+	private static final int BULK_LIMIT = 500;
+	private static final int BULK_PARALLELISM = 4;
+	private static final int CHUNK_SIZE = 2 * 1024 * 1024;
+	private static final int DELETE_LIMIT = 100;
+	private static final int GET_LIMIT = 100;
+
+	private record Item(int index, String key, DocumentReference document, Object value) {
+	}
+
+	private record Write(int index, String key, ApiFuture<WriteResult> future) {
+	}
+
+	private record Aggregate(Number sum, long count) {
+	}
 
 	private final String path;
 	private final Class<T> type;
@@ -43,10 +88,21 @@ public abstract class DAO<T> {
 	private Firestore firestore;
 	private CollectionReference collection;
 	private Bucket bucket;
+	private ExecutorService executor;
+	private ExecutorService scanner;
 	private Source source;
 	private boolean auto;
-	private Field keyField;
-	private Map<String, Field> fileFields;
+	private Property keyField;
+	private Map<String, Property> fileFields;
+	private volatile int generation;
+	private int parallelism;
+	private int chunkSize;
+	private boolean optimistic;
+	private int attempts;
+	private boolean coded;
+	private Cache cache;
+	private final Object lock;
+	private volatile Replica<T> replica;
 
 	@SuppressWarnings("unchecked")
 	protected DAO(String path) {
@@ -87,11 +143,22 @@ public abstract class DAO<T> {
 		this.firestore = null;
 		this.collection = null;
 		this.bucket = null;
+		this.executor = null;
+		this.scanner = null;
 
 		this.source = null;
 		this.auto = false;
 		this.keyField = null;
 		this.fileFields = null;
+		this.generation = -1;
+		this.parallelism = BULK_PARALLELISM;
+		this.chunkSize = CHUNK_SIZE;
+		this.optimistic = false;
+		this.attempts = Session.ATTEMPTS;
+		this.coded = false;
+		this.cache = null;
+		this.lock = new Object();
+		this.replica = null;
 	}
 
 	private String clean(String code) {
@@ -128,6 +195,13 @@ public abstract class DAO<T> {
 		ready();
 	}
 
+	private void validate(Collection<?> values) {
+		if (values == null) {
+			throw new IllegalArgumentException("Collection cannot be null");
+		}
+		ready();
+	}
+
 	private void validate(Selection selection) {
 		if (selection == null) {
 			throw new IllegalArgumentException("Selection cannot be null");
@@ -138,457 +212,1439 @@ public abstract class DAO<T> {
 		}
 	}
 
-	private void validate(Map<String, InputStream> streams, String name) {
-		if (streams.get(name) == null) {
-			throw new IllegalArgumentException("Input stream %s cannot be null".formatted(name));
+	private String validate(Map<String, Object> values) {
+		if (values == null) {
+			throw new IllegalArgumentException("Field map cannot be null");
 		}
-	}
-
-	private String join(String key, String name) {
-		return "%s/%s/%s".formatted(path, key, name);
-	}
-
-	private Object get(Field field, T object) {
-		Object value;
-		try {
-			value = field.get(object);
-		} catch (IllegalAccessException exception) {
-			throw new AccessFirestoreException(exception);
+		ready();
+		for (String name : values.keySet()) {
+			if (!source.hasField(name)) {
+				throw new IllegalArgumentException("Field %s does not exist in class %s".formatted(name, type.getName()));
+			}
 		}
-		return value;
-	}
-
-	private void set(Field field, T object, String value) {
-		try {
-			field.set(object, value);
-		} catch (IllegalAccessException exception) {
-			throw new AccessFirestoreException(exception);
+		String keyName = keyField.getName();
+		if (!values.containsKey(keyName)) {
+			throw new IllegalArgumentException("Field %s must be in map".formatted(keyName));
+		}
+		Object rawKey = values.get(keyName);
+		if (rawKey instanceof FieldValue) {
+			throw new IllegalArgumentException("Field %s cannot be a transform".formatted(keyName));
 		}
+		return convert(rawKey);
 	}
 
-	private DocumentReference preUpdate(String key) {
-		DocumentReference document = collection.document(key);
-		try {
-			if (!document.get().get().exists()) {
-				throw new RequestFirestoreException("Key %s does not exist in database".formatted(key));
-			}
-		} catch (ExecutionException exception) {
-			throw new ExecutionFirestoreException(exception);
-		} catch (InterruptedException exception) {
-			throw new InterruptedFirestoreException(exception);
+	private void validate(Session session) {
+		ready();
+		if (!session.getFirestore().equals(firestore)) {
+			throw new RequestFirestoreException("Firebase instance is not the one that started the session");
 		}
-		return document;
 	}
 
-	private String createOrUpdate(Map<String, InputStream> streams, String name, String key) {
-		InputStream stream = streams.get(name);
-		String blobPath = join(key, name);
-		Blob blob = bucket.get(blobPath);
-		if (blob == null) {
-			blob = bucket.create(blobPath, stream);
-			blob.createAcl(Acl.of(Acl.User.ofAllUsers(), Acl.Role.READER));
-		} else {
-			WriteChannel writer = blob.writer();
-			try {
-				ByteBuffer source = ByteBuffer.wrap(stream.readAllBytes());
-				writer.write(source);
-				writer.close();
-			} catch (IOException exception) {
-				throw new StorageFirestoreException(exception);
-			}
-			blob = bucket.get(blobPath);
+	private void validate(Map<String, InputStream> streams, String name) {
+		if (streams.get(name) == null) {
+			throw new IllegalArgumentException("Input stream %s cannot be null".formatted(name));
 		}
-		return blob.getMediaLink();
 	}
 
-	private void createOrUpdate(T object, Map<String, InputStream> streams, String key) {
-		Field field;
+	private void validate(T object, Map<String, InputStream> streams) {
 		for (String name : streams.keySet()) {
-			field = fileFields.get(name);
+			Property field = fileFields.get(name);
 			if (field == null) {
 				throw new IllegalArgumentException("File field %s does not exist in class %s".formatted(name, type.getName()));
 			}
-			if (get(field, object) != null) {
+			if (field.get(object) != null) {
 				throw new IllegalArgumentException("File field %s must be null in object".formatted(name));
 			}
 			validate(streams, name);
 		}
-		for (String name : streams.keySet()) {
-			field = fileFields.get(name);
-			String url = createOrUpdate(streams, name, key);
-			set(field, object, url);
-		}
 	}
 
-	private void delete(List<String> blobPaths) {
-		if (!blobPaths.isEmpty()) {
-			for (Blob blob : bucket.get(blobPaths)) {
-				if (blob != null) {
-					blob.delete();
-				}
+	private void validate(Map<String, Object> values, Map<String, InputStream> streams) {
+		for (String name : streams.keySet()) {
+			if (!fileFields.containsKey(name)) {
+				throw new IllegalArgumentException("File field %s does not exist in class %s".formatted(name, type.getName()));
 			}
+			if (values.containsKey(name)) {
+				throw new IllegalArgumentException("File field %s cannot be in map".formatted(name));
+			}
+			validate(streams, name);
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-	private T postRetrieve(DocumentSnapshot document, Class<?> proxyType) {
-		T object;
-		if (proxyType == null) {
-			object = document.toObject(type);
-		} else {
-			Object proxy = document.toObject(proxyType);
-			Class<?> superType = proxyType.getSuperclass();
-			try {
-				Field field = superType.getDeclaredField("that");
-				object = (T) field.get(proxy);
-			} catch (NoSuchFieldException exception) {
-				throw new BytecodeFirestoreException(exception);
-			} catch (IllegalAccessException exception) {
-				throw new BytecodeFirestoreException(exception);
-			}
-		}
-		return object;
+	private String join(String key, String name) {
+		return "%s/%s/%s".formatted(path, key, name);
 	}
 
-	private void postCreateOrUpdate(T object, DocumentReference document, Class<? extends Adapter<T>> adapter) {
-		Object proxy = null;
-		if (adapter != null) {
-			Class<?> proxyType = source.compile(adapter.getName());
-			try {
-				proxy = proxyType.getDeclaredConstructor(type).newInstance(object);
-			} catch (NoSuchMethodException exception) {
-				throw new BytecodeFirestoreException(exception);
-			} catch (InvocationTargetException exception) {
-				throw new BytecodeFirestoreException(exception);
-			} catch (IllegalAccessException exception) {
-				throw new BytecodeFirestoreException(exception);
-			} catch (InstantiationException exception) {
-				throw new BytecodeFirestoreException(exception);
-			}
-		}
-		try {
-			if (proxy == null) {
-				document.set(object).get();
-			} else {
-				document.set(proxy).get();
+	private DocumentReference preCreate(T object) {
+		DocumentReference document;
+		if (auto) {
+			if (keyField.get(object) != null) {
+				throw new IllegalArgumentException("Key must be null in object");
 			}
-		} catch (ExecutionException exception) {
-			throw new ExecutionFirestoreException(exception);
-		} catch (InterruptedException exception) {
-			throw new InterruptedFirestoreException(exception);
+			document = collection.document();
+			keyField.set(object, document.getId());
+		} else {
+			Object rawKey = keyField.get(object);
+			document = collection.document(convert(rawKey));
 		}
+		return document;
 	}
 
-	@SuppressWarnings("unchecked")
-	private <S extends DAO<T>> S refreshed() {
-		firebase.connect();
-		firestore = firebase.getFirestore();
-		collection = firebase.collection(path);
-		bucket = firebase.getBucket();
-		if (source == null) {
-			source = firebase.reflect(type);
-			auto = source.isAuto();
-			keyField = source.getKeyField();
-			fileFields = source.getFileFields();
+	private CompletableFuture<Void> preCreate(DocumentReference document) {
+		if (auto) {
+			return CompletableFuture.completedFuture(null);
 		}
-		return (S) this;
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.CHECK);
+		return observe(monitor, span, Operation.CHECK, start, firebase.getRetryPolicy().call(document::get).thenAccept(snapshot -> {
+			if (snapshot.exists()) {
+				throw new RequestFirestoreException("Key %s already exists in database".formatted(document.getId()));
+			}
+		}));
 	}
 
-	public <S extends DAO<T>> S fromCredentials(FirebaseManager manager, String path) {
-		firebase = manager.getFromCredentials(path);
-		return refreshed();
+	private CompletableFuture<DocumentReference> preUpdate(String key) {
+		DocumentReference document = collection.document(key);
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.CHECK);
+		return observe(monitor, span, Operation.CHECK, start, firebase.getRetryPolicy().call(document::get).thenApply(snapshot -> {
+			if (!snapshot.exists()) {
+				throw new RequestFirestoreException("Key %s does not exist in database".formatted(key));
+			}
+			return document;
+		}));
 	}
 
-	public <S extends DAO<T>> S fromCredentials(String path) {
-		return fromCredentials(Firebase.manager(), path);
+	private long write(FileChannel channel, WriteChannel writer) throws IOException {
+		long initial = channel.position();
+		long position = initial;
+		long size = channel.size();
+		while (position < size) {
+			ByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+			while (buffer.hasRemaining()) {
+				position += writer.write(buffer);
+			}
+		}
+		channel.position(position);
+		return position - initial;
 	}
 
-	public <S extends DAO<T>> S from(FirebaseManager manager, String id) {
-		firebase = manager.get(id);
-		return refreshed();
+	private long write(ReadableByteChannel channel, WriteChannel writer) throws IOException {
+		long count = 0;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(chunkSize);
+		while (channel.read(buffer) != -1) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				count += writer.write(buffer);
+			}
+			buffer.clear();
+		}
+		return count;
 	}
 
-	public <S extends DAO<T>> S from(FirebaseManager manager) {
-		firebase = manager.get();
-		return refreshed();
+	private String createOrUpdate(Map<String, InputStream> streams, String name, String key) {
+		InputStream stream = streams.get(name);
+		String blobPath = join(key, name);
+		BlobInfo info = BlobInfo.newBuilder(bucket.getName(), blobPath).build();
+		long count;
+		try (WriteChannel writer = bucket.getStorage().writer(info, BlobWriteOption.predefinedAcl(PredefinedAcl.PUBLIC_READ))) {
+			writer.setChunkSize(chunkSize);
+			if (stream.getClass().equals(FileInputStream.class)) {
+				count = write(((FileInputStream) stream).getChannel(), writer);
+			} else {
+				count = write(Channels.newChannel(stream), writer);
+			}
+		} catch (IOException exception) {
+			throw new StorageFirestoreException(exception);
+		}
+		firebase.getMonitor().bytes(path, Operation.UPLOAD, count);
+		Blob blob = bucket.get(blobPath);
+		return blob.getMediaLink();
 	}
 
-	public <S extends DAO<T>> S from(String id) {
-		return from(Firebase.manager(), id);
+	private CompletableFuture<Map<String, String>> upload(Map<String, InputStream> streams, String key) {
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.UPLOAD);
+		Map<String, String> urls = new ConcurrentHashMap<>();
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (String name : streams.keySet()) {
+			futures.add(CompletableFuture.runAsync(() -> urls.put(name, createOrUpdate(streams, name, key)), executor));
+		}
+		return observe(monitor, span, Operation.UPLOAD, start, CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(none -> urls));
 	}
 
-	public <S extends DAO<T>> S ready() {
-		if (firebase == null) {
-			return from(Firebase.manager());
-		}
-		return refreshed();
+	private CompletableFuture<Void> createOrUpdate(T object, Map<String, InputStream> streams, String key) {
+		return upload(streams, key).thenAccept(urls -> {
+			for (String name : urls.keySet()) {
+				Property field = fileFields.get(name);
+				field.set(object, urls.get(name));
+			}
+		});
 	}
 
-	public Selection selectAll() {
-		ready();
-		return new Selection(collection);
+	private CompletableFuture<Void> createOrUpdate(Map<String, Object> values, Map<String, InputStream> streams, String key) {
+		return upload(streams, key).thenAccept(urls -> {
+			values.putAll(urls);
+		});
 	}
 
-	public Selection selectWhereEqualTo(String name, Object value) {
-		name = Selection.clean(name);
+	private ReadChannel read(Object rawKey, String name, long offset, long length) {
+		String key = convert(rawKey);
+		if (name == null) {
+			throw new IllegalArgumentException("File field name cannot be null");
+		}
+		if (offset < 0) {
+			throw new IllegalArgumentException("Offset cannot be negative");
+		}
+		if (length < 1) {
+			throw new IllegalArgumentException("Length must be positive");
+		}
 		ready();
-		return new Selection(collection.whereEqualTo(name, value));
+		if (!fileFields.containsKey(name)) {
+			throw new IllegalArgumentException("File field %s does not exist in class %s".formatted(name, type.getName()));
+		}
+		ReadChannel reader = bucket.getStorage().reader(BlobId.of(bucket.getName(), join(key, name)));
+		reader.setChunkSize(chunkSize);
+		try {
+			if (offset > 0) {
+				reader.seek(offset);
+			}
+			if (length < Long.MAX_VALUE - offset) {
+				reader.limit(offset + length);
+			}
+		} catch (IOException exception) {
+			reader.close();
+			throw new StorageFirestoreException(exception);
+		}
+		return reader;
 	}
 
-	public Selection selectWhereNotEqualTo(String name, Object value) {
-		name = Selection.clean(name);
-		ready();
-		return new Selection(collection.whereNotEqualTo(name, value));
+	private void delete(List<String> blobPaths) {
+		List<BlobId> blobIds = new ArrayList<>();
+		for (String blobPath : blobPaths) {
+			blobIds.add(BlobId.of(bucket.getName(), blobPath));
+		}
+		bucket.getStorage().delete(blobIds);
 	}
 
-	public Selection selectWhereLessThan(String name, Object value) {
-		name = Selection.clean(name);
-		ready();
-		return new Selection(collection.whereLessThan(name, value));
+	private CompletableFuture<Void> discard(List<String> blobPaths) {
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < blobPaths.size(); i += DELETE_LIMIT) {
+			List<String> chunk = blobPaths.subList(i, Math.min(i + DELETE_LIMIT, blobPaths.size()));
+			futures.add(CompletableFuture.runAsync(() -> delete(chunk), executor));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
 	}
 
-	public Selection selectWhereLessThanOrEqualTo(String name, Object value) {
-		name = Selection.clean(name);
-		ready();
-		return new Selection(collection.whereLessThanOrEqualTo(name, value));
+	private RuntimeException rethrow(ExecutionException exception, String key) {
+		Throwable cause = exception.getCause();
+		if (cause instanceof RuntimeException && Futures.code(cause) == null) {
+			return (RuntimeException) cause;
+		}
+		return translate(exception, key);
 	}
 
-	public Selection selectWhereGreaterThan(String name, Object value) {
-		name = Selection.clean(name);
-		ready();
-		return new Selection(collection.whereGreaterThan(name, value));
+	private RuntimeException translate(ExecutionException exception, String key) {
+		Code code = Futures.code(exception.getCause());
+		if (code == Code.ALREADY_EXISTS) {
+			return new RequestFirestoreException("Key %s already exists in database".formatted(key));
+		}
+		if (code == Code.NOT_FOUND) {
+			return new RequestFirestoreException("Key %s does not exist in database".formatted(key));
+		}
+		return new ExecutionFirestoreException(exception);
 	}
 
-	public Selection selectWhereGreaterThanOrEqualTo(String name, Object value) {
-		name = Selection.clean(name);
-		ready();
-		return new Selection(collection.whereGreaterThanOrEqualTo(name, value));
+	private <V> CompletableFuture<V> observe(Monitor monitor, Object span, Operation operation, long start, CompletableFuture<V> future) {
+		if (monitor == Monitor.NONE) {
+			return future;
+		}
+		return future.whenComplete((result, exception) -> {
+			monitor.stop(span, path, operation, System.nanoTime() - start, exception);
+		});
 	}
 
-	public Selection selectWhereContains(String name, Object value) {
-		name = Selection.clean(name);
-		ready();
-		return new Selection(collection.whereArrayContains(name, value));
+	private void invalidate(String key) {
+		Cache cache = this.cache;
+		if (cache != null) {
+			cache.invalidate(path, key);
+		}
 	}
 
-	public Selection selectWhereContainsAny(String name, List<?> values) {
-		name = Selection.clean(name, values);
-		ready();
-		return new Selection(collection.whereArrayContainsAny(name, values));
+	private List<Write> submitCreate(List<Item> items, BulkWriter writer) {
+		List<Write> writes = new ArrayList<>();
+		for (Item item : items) {
+			writes.add(new Write(item.index(), item.key(), writer.create(item.document(), item.value())));
+		}
+		return writes;
 	}
 
-	public Selection selectWhereIn(String name, List<?> values) {
-		name = Selection.clean(name, values);
-		ready();
-		return new Selection(collection.whereIn(name, values));
+	private List<Write> submitUpdate(List<Item> items, BulkWriter writer, Report report) {
+		DocumentReference[] documents = new DocumentReference[items.size()];
+		for (int i = 0; i < documents.length; i++) {
+			documents[i] = items.get(i).document();
+		}
+		List<Write> writes = new ArrayList<>();
+		List<DocumentSnapshot> snapshots;
+		try {
+			snapshots = Futures.await(firebase.getRetryPolicy().call(() -> firestore.getAll(documents)));
+		} catch (RuntimeException exception) {
+			for (Item item : items) {
+				report.setException(item.index(), exception);
+			}
+			return writes;
+		}
+		for (int i = 0; i < documents.length; i++) {
+			Item item = items.get(i);
+			if (snapshots.get(i).exists()) {
+				writes.add(new Write(item.index(), item.key(), writer.set(item.document(), item.value())));
+			} else {
+				report.setException(item.index(), new RequestFirestoreException("Key %s does not exist in database".formatted(item.key())));
+			}
+		}
+		return writes;
 	}
 
-	public Selection selectWhereNotIn(String name, List<?> values) {
-		name = Selection.clean(name, values);
-		ready();
-		return new Selection(collection.whereNotIn(name, values));
+	private List<Write> submitDelete(List<Item> items, BulkWriter writer) {
+		List<Write> writes = new ArrayList<>();
+		for (Item item : items) {
+			writes.add(new Write(item.index(), item.key(), writer.delete(item.document())));
+		}
+		return writes;
 	}
 
-	public void create(T object, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
-		validate(object);
-		String key;
-		DocumentReference document;
-		if (auto) {
-			if (get(keyField, object) != null) {
-				throw new IllegalArgumentException("Key must be null in object");
-			}
-			document = collection.document();
-			key = document.getId();
-			set(keyField, object, key);
-		} else {
-			Object rawKey = get(keyField, object);
-			key = convert(rawKey);
-			document = collection.document(key);
+	private void drain(List<Write> writes, Report report, boolean clean) {
+		List<String> keys = new ArrayList<>();
+		for (Write write : writes) {
 			try {
-				if (document.get().get().exists()) {
-					throw new RequestFirestoreException("Key %s already exists in database".formatted(key));
-				}
+				write.future().get();
+				keys.add(write.key());
 			} catch (ExecutionException exception) {
-				throw new ExecutionFirestoreException(exception);
+				report.setException(write.index(), translate(exception, write.key()));
 			} catch (InterruptedException exception) {
 				throw new InterruptedFirestoreException(exception);
+			} finally {
+				invalidate(write.key());
 			}
 		}
-		if (streams != null) {
-			createOrUpdate(object, streams, key);
+		if (clean && !fileFields.isEmpty()) {
+			List<String> blobPaths = new ArrayList<>();
+			for (String key : keys) {
+				for (String name : fileFields.keySet()) {
+					blobPaths.add(join(key, name));
+				}
+			}
+			try {
+				Futures.await(discard(blobPaths));
+			} catch (RuntimeException exception) {
+				for (Write write : writes) {
+					if (report.succeeded(write.index())) {
+						report.setException(write.index(), exception);
+					}
+				}
+			}
 		}
-		postCreateOrUpdate(object, document, adapter);
 	}
 
-	public void create(T object, Map<String, InputStream> streams) {
-		create(object, streams, null);
+	private CompletableFuture<Void> purge(List<String> keys, AtomicLong deleted, LongConsumer progress) {
+		WriteBatch batch = firestore.batch();
+		List<String> blobPaths = new ArrayList<>();
+		for (String key : keys) {
+			batch.delete(collection.document(key));
+			for (String name : fileFields.keySet()) {
+				blobPaths.add(join(key, name));
+			}
+		}
+		return Futures.of(batch.commit()).whenComplete((result, exception) -> {
+			for (String key : keys) {
+				invalidate(key);
+			}
+		}).thenCompose(result -> discard(blobPaths)).thenRun(() -> {
+			synchronized (deleted) {
+				long total = deleted.addAndGet(keys.size());
+				if (progress != null) {
+					progress.accept(total);
+				}
+			}
+		});
 	}
 
-	public void create(T object, Class<? extends Adapter<T>> adapter) {
-		create(object, null, adapter);
+	private void purge(Selection selection, LongConsumer progress) {
+		Iterator<DocumentSnapshot> documents = selection.scan(null);
+		Deque<CompletableFuture<Void>> pending = new ArrayDeque<>();
+		AtomicLong deleted = new AtomicLong();
+		List<String> keys = new ArrayList<>();
+		while (documents.hasNext()) {
+			keys.add(documents.next().getId());
+			if (keys.size() == BULK_LIMIT) {
+				pending.addLast(purge(keys, deleted, progress));
+				keys = new ArrayList<>();
+				if (pending.size() > parallelism) {
+					Futures.await(pending.removeFirst());
+				}
+			}
+		}
+		if (!keys.isEmpty()) {
+			pending.addLast(purge(keys, deleted, progress));
+		}
+		while (!pending.isEmpty()) {
+			Futures.await(pending.removeFirst());
+		}
 	}
 
-	public void create(T object) {
-		create(object, null, null);
+	private void push(Deque<List<Write>> chunks, List<Write> writes, BulkWriter writer, Report report, boolean clean) {
+		chunks.addLast(writes);
+		writer.flush();
+		if (chunks.size() > parallelism) {
+			drain(chunks.removeFirst(), report, clean);
+		}
 	}
 
-	public T retrieve(Object rawKey, Class<? extends Adapter<T>> adapter) {
-		String key = convert(rawKey);
-		ready();
-		DocumentSnapshot document;
+	private void finish(Deque<List<Write>> chunks, BulkWriter writer, Report report, boolean clean) {
 		try {
-			document = collection.document(key).get().get();
+			writer.close();
 		} catch (ExecutionException exception) {
 			throw new ExecutionFirestoreException(exception);
 		} catch (InterruptedException exception) {
 			throw new InterruptedFirestoreException(exception);
 		}
-		if (!document.exists()) {
+		while (!chunks.isEmpty()) {
+			drain(chunks.removeFirst(), report, clean);
+		}
+	}
+
+	private Codec codec(Mirror mirror) {
+		if (!coded) {
 			return null;
 		}
-		Class<?> proxyType = null;
-		if (adapter != null) {
-			proxyType = source.compile(adapter.getName());
+		if (mirror == null) {
+			return source.getCodec();
 		}
-		return postRetrieve(document, proxyType);
+		return mirror.getCodec();
 	}
 
-	public T retrieve(Object rawKey) {
-		return retrieve(rawKey, null);
+	@SuppressWarnings("unchecked")
+	private T postRetrieve(DocumentSnapshot document, Mirror mirror) {
+		T object;
+		Codec codec = codec(mirror);
+		if (mirror == null) {
+			if (codec != null) {
+				object = (T) codec.decode(document.getData());
+			} else {
+				object = document.toObject(type);
+			}
+		} else {
+			Object proxy;
+			if (codec != null) {
+				proxy = codec.decode(document.getData());
+			} else {
+				proxy = document.toObject(mirror.getType());
+			}
+			object = (T) mirror.unwrap(proxy);
+		}
+		return object;
 	}
 
-	public List<T> retrieve(Selection selection, Class<? extends Adapter<T>> adapter) {
-		validate(selection);
-		Class<?> proxyType = null;
-		if (adapter != null) {
-			proxyType = source.compile(adapter.getName());
-		}
+	private List<T> postRetrieve(Iterable<? extends DocumentSnapshot> documents, Mirror mirror) {
 		List<T> values = new ArrayList<>();
-		for (DocumentSnapshot document : selection.getDocuments()) {
-			values.add(postRetrieve(document, proxyType));
+		for (DocumentSnapshot document : documents) {
+			values.add(postRetrieve(document, mirror));
 		}
 		return values;
 	}
 
-	public List<T> retrieve(Selection selection) {
-		return retrieve(selection, null);
+	private Iterator<DocumentSnapshot> scan(Selection selection, String name) {
+		List<DocumentSnapshot> replicas = replicated(selection);
+		if (replicas == null) {
+			return selection.scan(name);
+		}
+		return replicas.iterator();
 	}
 
-	public void update(T object, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
-		validate(object);
-		Object rawKey = get(keyField, object);
-		String key = convert(rawKey);
-		DocumentReference document = preUpdate(key);
-		if (streams != null) {
-			createOrUpdate(object, streams, key);
-			List<String> blobPaths = new ArrayList<>();
-			for (String name : fileFields.keySet()) {
-				Field field = fileFields.get(name);
-				if (get(field, object) == null) {
-					blobPaths.add(join(key, name));
+	private Aggregate aggregate(Iterator<DocumentSnapshot> documents, String name) {
+		long integer = 0;
+		double real = 0;
+		boolean exact = true;
+		long count = 0;
+		while (documents.hasNext()) {
+			Object value = documents.next().get(name);
+			if (value instanceof Long || value instanceof Integer) {
+				long number = ((Number) value).longValue();
+				if (exact) {
+					try {
+						integer = Math.addExact(integer, number);
+					} catch (ArithmeticException exception) {
+						real = (double) integer + number;
+						exact = false;
+					}
+				} else {
+					real += number;
 				}
+				count++;
+			} else if (value instanceof Double || value instanceof Float) {
+				if (exact) {
+					real = integer;
+					exact = false;
+				}
+				real += ((Number) value).doubleValue();
+				count++;
 			}
-			delete(blobPaths);
 		}
-		postCreateOrUpdate(object, document, adapter);
+		if (exact) {
+			return new Aggregate(integer, count);
+		}
+		return new Aggregate(real, count);
 	}
 
-	public void update(T object, Map<String, InputStream> streams) {
-		update(object, streams, null);
+	private CompletableFuture<List<DocumentSnapshot>> fetch(List<String> keys) {
+		DocumentReference[] documents = new DocumentReference[keys.size()];
+		for (int i = 0; i < documents.length; i++) {
+			documents[i] = collection.document(keys.get(i));
+		}
+		RetryPolicy retryPolicy = firebase.getRetryPolicy();
+		Cache cache = this.cache;
+		if (cache == null) {
+			return retryPolicy.call(() -> firestore.getAll(documents));
+		}
+		long stamp = cache.stamp();
+		return retryPolicy.call(() -> firestore.getAll(documents)).thenApply(snapshots -> {
+			for (DocumentSnapshot snapshot : snapshots) {
+				if (snapshot.exists()) {
+					cache.put(path, snapshot.getId(), snapshot, stamp);
+				}
+			}
+			return snapshots;
+		});
 	}
 
-	public void update(T object, Class<? extends Adapter<T>> adapter) {
-		update(object, null, adapter);
+	private List<DocumentSnapshot> replicated(Selection selection) {
+		Replica<T> replica = this.replica;
+		if (replica == null || !replica.isReady() || !selection.isLocal(collection)) {
+			return null;
+		}
+		return selection.evaluate(replica.getDocuments());
 	}
 
-	public void update(T object) {
-		update(object, null, null);
+	private Object adapt(T object, Class<? extends Adapter<T>> adapter) {
+		Object value;
+		Codec codec;
+		if (adapter == null) {
+			value = object;
+			codec = codec(null);
+		} else {
+			Mirror mirror = mirror(adapter);
+			value = mirror.wrap(object);
+			codec = codec(mirror);
+		}
+		if (codec != null) {
+			return codec.encode(value);
+		}
+		return value;
 	}
 
-	public void update(Map<String, Object> values, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
-		if (values == null) {
-			throw new IllegalArgumentException("Field map cannot be null");
-		}
+	private void adapt(Map<String, Object> values, Class<? extends Adapter<T>> adapter) {
+		Mirror mirror = mirror(adapter);
+		Object object = source.instantiate();
+		Object proxy = mirror.wrap(object);
 		for (String name : values.keySet()) {
-			Field field = null;
-			for (Class<?> ancestor = type; !ancestor.equals(Object.class); ancestor = ancestor.getSuperclass()) {
-				try {
-					field = ancestor.getDeclaredField(name);
-					break;
-				} catch (NoSuchFieldException exception) {
+			Property field = source.getField(name);
+			Property getter = mirror.getGetter(name);
+			if (field != null && getter != null && !(values.get(name) instanceof FieldValue)) {
+				field.set(object, values.get(name));
+				values.put(name, getter.get(proxy));
+			}
+		}
+	}
+
+	private CompletableFuture<Void> postCreate(T object, DocumentReference document, Class<? extends Adapter<T>> adapter) {
+		String key = document.getId();
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.WRITE);
+		return observe(monitor, span, Operation.WRITE, start, Futures.of(document.create(adapt(object, adapter)), exception -> translate(exception, key)).whenComplete((result, exception) -> {
+			invalidate(key);
+		}).thenAccept(result -> {
+		}));
+	}
+
+	private CompletableFuture<Void> postUpdate(T object, DocumentReference document, Class<? extends Adapter<T>> adapter, boolean checked) {
+		String key = document.getId();
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.WRITE);
+		if (checked) {
+			return observe(monitor, span, Operation.WRITE, start, Futures.of(document.set(adapt(object, adapter))).whenComplete((result, exception) -> {
+				invalidate(key);
+			}).thenAccept(result -> {
+			}));
+		}
+		WriteBatch batch = firestore.batch();
+		batch.update(document, keyField.getName(), FieldValue.delete());
+		batch.set(document, adapt(object, adapter));
+		return observe(monitor, span, Operation.WRITE, start, Futures.of(batch.commit(), exception -> translate(exception, key)).whenComplete((result, exception) -> {
+			invalidate(key);
+		}).thenAccept(result -> {
+		}));
+	}
+
+	private Mirror mirror(Class<? extends Adapter<T>> adapter) {
+		if (adapter == null) {
+			return null;
+		}
+		return source.compile(adapter, firebase.getMonitor(), path);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <S extends DAO<T>> S refreshed() {
+		synchronized (firebase) {
+			synchronized (lock) {
+				if (replica != null) {
+					replica.close();
+					replica = null;
 				}
 			}
-			if (field == null) {
-				throw new IllegalArgumentException("Field %s does not exist in class %s".formatted(name, type.getName()));
+			firebase.connect();
+			firestore = firebase.getFirestore();
+			collection = firebase.collection(path);
+			bucket = firebase.getBucket();
+			executor = firebase.getExecutor();
+			scanner = firebase.getScanner();
+			if (source == null) {
+				source = firebase.reflect(type);
+				auto = source.isAuto();
+				keyField = source.getKeyField();
+				fileFields = source.getFileFields();
 			}
+			generation = firebase.getGeneration();
 		}
+		return (S) this;
+	}
+
+	public <S extends DAO<T>> S fromCredentials(FirebaseManager manager, String path) {
+		firebase = manager.getFromCredentials(path);
+		return refreshed();
+	}
+
+	public <S extends DAO<T>> S fromCredentials(String path) {
+		return fromCredentials(Firebase.manager(), path);
+	}
+
+	public <S extends DAO<T>> S from(FirebaseManager manager, String id) {
+		firebase = manager.get(id);
+		return refreshed();
+	}
+
+	public <S extends DAO<T>> S from(FirebaseManager manager) {
+		firebase = manager.get();
+		return refreshed();
+	}
+
+	public <S extends DAO<T>> S from(String id) {
+		return from(Firebase.manager(), id);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <S extends DAO<T>> S ready() {
+		if (firebase == null) {
+			return from(Firebase.manager());
+		}
+		if (generation == firebase.getGeneration()) {
+			return (S) this;
+		}
+		return refreshed();
+	}
+
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	public void setOptimistic(boolean optimistic) {
+		this.optimistic = optimistic;
+	}
+
+	public void setAttempts(int attempts) {
+		if (attempts < 1) {
+			throw new IllegalArgumentException("Number of attempts must be positive");
+		}
+		this.attempts = attempts;
+	}
+
+	public void setCoded(boolean coded) {
+		this.coded = coded;
+	}
+
+	public void setCache(Cache cache) {
+		this.cache = cache;
+	}
+
+	public Replica<T> replicate() {
 		ready();
-		String keyName = keyField.getName();
-		if (!values.containsKey(keyName)) {
-			throw new IllegalArgumentException("Field %s must be in map".formatted(keyName));
+		synchronized (lock) {
+			if (replica == null || replica.isClosed()) {
+				replica = new Replica<>(collection, document -> postRetrieve(document, null));
+			}
+			return replica;
 		}
-		Object rawKey = values.get(keyName);
-		String key = convert(rawKey);
-		DocumentReference document = preUpdate(key);
-		if (streams != null) {
-			for (String name : streams.keySet()) {
-				if (!fileFields.containsKey(name)) {
-					throw new IllegalArgumentException("File field %s does not exist in class %s".formatted(name, type.getName()));
+	}
+
+	public ReadableByteChannel openFile(Object rawKey, String name, long offset, long length) {
+		return read(rawKey, name, offset, length);
+	}
+
+	public ReadableByteChannel openFile(Object rawKey, String name, long offset) {
+		return read(rawKey, name, offset, Long.MAX_VALUE);
+	}
+
+	public ReadableByteChannel openFile(Object rawKey, String name) {
+		return read(rawKey, name, 0, Long.MAX_VALUE);
+	}
+
+	public long transferFile(Object rawKey, String name, WritableByteChannel target, long offset, long length) {
+		if (target == null) {
+			throw new IllegalArgumentException("Target channel cannot be null");
+		}
+		ReadChannel reader = read(rawKey, name, offset, length);
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.TRANSFER);
+		long count = 0;
+		try (reader) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(chunkSize);
+			while (reader.read(buffer) != -1) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					count += target.write(buffer);
 				}
-				if (values.containsKey(name)) {
-					throw new IllegalArgumentException("File field %s cannot be in map".formatted(name));
+				buffer.clear();
+			}
+		} catch (IOException exception) {
+			StorageFirestoreException translated = new StorageFirestoreException(exception);
+			monitor.stop(span, path, Operation.TRANSFER, System.nanoTime() - start, translated);
+			throw translated;
+		}
+		monitor.bytes(path, Operation.TRANSFER, count);
+		monitor.stop(span, path, Operation.TRANSFER, System.nanoTime() - start, null);
+		return count;
+	}
+
+	public long transferFile(Object rawKey, String name, WritableByteChannel target, long offset) {
+		return transferFile(rawKey, name, target, offset, Long.MAX_VALUE);
+	}
+
+	public long transferFile(Object rawKey, String name, WritableByteChannel target) {
+		return transferFile(rawKey, name, target, 0, Long.MAX_VALUE);
+	}
+
+	public Selection selectAll() {
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy());
+	}
+
+	public Selection selectWhereEqualTo(String name, Object value) {
+		name = Selection.clean(name);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereEqualTo(name, value);
+	}
+
+	public Selection selectWhereNotEqualTo(String name, Object value) {
+		name = Selection.clean(name);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereNotEqualTo(name, value);
+	}
+
+	public Selection selectWhereLessThan(String name, Object value) {
+		name = Selection.clean(name);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereLessThan(name, value);
+	}
+
+	public Selection selectWhereLessThanOrEqualTo(String name, Object value) {
+		name = Selection.clean(name);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereLessThanOrEqualTo(name, value);
+	}
+
+	public Selection selectWhereGreaterThan(String name, Object value) {
+		name = Selection.clean(name);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereGreaterThan(name, value);
+	}
+
+	public Selection selectWhereGreaterThanOrEqualTo(String name, Object value) {
+		name = Selection.clean(name);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereGreaterThanOrEqualTo(name, value);
+	}
+
+	public Selection selectWhereContains(String name, Object value) {
+		name = Selection.clean(name);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereContains(name, value);
+	}
+
+	public Selection selectWhereContainsAny(String name, List<?> values) {
+		name = Selection.clean(name, values);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereContainsAny(name, values);
+	}
+
+	public Selection selectWhereIn(String name, List<?> values) {
+		name = Selection.clean(name, values);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereIn(name, values);
+	}
+
+	public Selection selectWhereNotIn(String name, List<?> values) {
+		name = Selection.clean(name, values);
+		ready();
+		return new Selection(collection, keyField.getName(), firebase.getRetryPolicy()).whereNotIn(name, values);
+	}
+
+	public CompletableFuture<Void> createAsync(T object, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
+		validate(object);
+		if (streams != null) {
+			validate(object, streams);
+		}
+		DocumentReference document = preCreate(object);
+		String key = document.getId();
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.CREATE);
+		CompletableFuture<Void> future;
+		if (optimistic && streams == null) {
+			future = CompletableFuture.completedFuture(null);
+		} else {
+			future = preCreate(document);
+		}
+		if (streams != null) {
+			future = future.thenCompose(none -> createOrUpdate(object, streams, key));
+		}
+		return observe(monitor, span, Operation.CREATE, start, future.thenCompose(none -> postCreate(object, document, adapter)));
+	}
+
+	public CompletableFuture<Void> createAsync(T object, Map<String, InputStream> streams) {
+		return createAsync(object, streams, null);
+	}
+
+	public CompletableFuture<Void> createAsync(T object, Class<? extends Adapter<T>> adapter) {
+		return createAsync(object, null, adapter);
+	}
+
+	public CompletableFuture<Void> createAsync(T object) {
+		return createAsync(object, null, null);
+	}
+
+	public void create(T object, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
+		Futures.await(createAsync(object, streams, adapter));
+	}
+
+	public void create(T object, Map<String, InputStream> streams) {
+		create(object, streams, null);
+	}
+
+	public void create(T object, Class<? extends Adapter<T>> adapter) {
+		create(object, null, adapter);
+	}
+
+	public void create(T object) {
+		create(object, null, null);
+	}
+
+	public Report createAll(Collection<T> objects, Class<? extends Adapter<T>> adapter) {
+		validate(objects);
+		Report report = new Report();
+		BulkWriter writer = firestore.bulkWriter();
+		Deque<List<Write>> chunks = new ArrayDeque<>();
+		List<Item> items = new ArrayList<>();
+		for (T object : objects) {
+			int index = report.add();
+			try {
+				if (object == null) {
+					throw new IllegalArgumentException("Object cannot be null");
 				}
-				validate(streams, name);
+				DocumentReference document = preCreate(object);
+				String key = document.getId();
+				report.setKey(index, key);
+				items.add(new Item(index, key, document, adapt(object, adapter)));
+			} catch (RuntimeException exception) {
+				report.setException(index, exception);
 			}
-			for (String name : streams.keySet()) {
-				String url = createOrUpdate(streams, name, key);
-				values.put(name, url);
+			if (items.size() == BULK_LIMIT) {
+				push(chunks, submitCreate(items, writer), writer, report, false);
+				items.clear();
 			}
-			List<String> blobPaths = new ArrayList<>();
-			for (String name : fileFields.keySet()) {
-				if (values.containsKey(name) && values.get(name) == null) {
-					blobPaths.add(join(key, name));
+		}
+		if (!items.isEmpty()) {
+			chunks.addLast(submitCreate(items, writer));
+		}
+		finish(chunks, writer, report, false);
+		return report;
+	}
+
+	public Report createAll(Collection<T> objects) {
+		return createAll(objects, null);
+	}
+
+	public CompletableFuture<T> retrieveAsync(Object rawKey, Class<? extends Adapter<T>> adapter) {
+		String key = convert(rawKey);
+		ready();
+		Mirror mirror = mirror(adapter);
+		Replica<T> replica = this.replica;
+		Cache cache = this.cache;
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.RETRIEVE);
+		CompletableFuture<DocumentSnapshot> future;
+		if (replica != null && replica.isReady()) {
+			future = CompletableFuture.completedFuture(replica.get(key));
+		} else if (cache == null) {
+			future = firebase.getRetryPolicy().hedge(collection.document(key)::get);
+		} else {
+			DocumentSnapshot cached = cache.get(path, key);
+			monitor.cache(path, cached != null);
+			if (cached == null) {
+				long stamp = cache.stamp();
+				future = firebase.getRetryPolicy().hedge(collection.document(key)::get).thenApply(document -> {
+					if (document.exists()) {
+						cache.put(path, key, document, stamp);
+					}
+					return document;
+				});
+			} else {
+				future = CompletableFuture.completedFuture(cached);
+			}
+		}
+		return observe(monitor, span, Operation.RETRIEVE, start, future.thenApply(document -> {
+			if (document == null || !document.exists()) {
+				return null;
+			}
+			return postRetrieve(document, mirror);
+		}));
+	}
+
+	public CompletableFuture<T> retrieveAsync(Object rawKey) {
+		return retrieveAsync(rawKey, null);
+	}
+
+	public T retrieve(Object rawKey, Class<? extends Adapter<T>> adapter) {
+		return Futures.await(retrieveAsync(rawKey, adapter));
+	}
+
+	public T retrieve(Object rawKey) {
+		return retrieve(rawKey, null);
+	}
+
+	public CompletableFuture<Map<String, T>> retrieveAllAsync(Collection<?> rawKeys, Class<? extends Adapter<T>> adapter) {
+		validate(rawKeys);
+		Set<String> keys = new LinkedHashSet<>();
+		for (Object rawKey : rawKeys) {
+			keys.add(convert(rawKey));
+		}
+		Mirror mirror = mirror(adapter);
+		Replica<T> replica = this.replica;
+		Cache cache = this.cache;
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.RETRIEVE_ALL);
+		Map<String, DocumentSnapshot> documents = new ConcurrentHashMap<>();
+		List<String> misses = new ArrayList<>();
+		if (replica != null && replica.isReady()) {
+			for (String key : keys) {
+				DocumentSnapshot document = replica.get(key);
+				if (document != null) {
+					documents.put(key, document);
+				}
+			}
+		} else {
+			for (String key : keys) {
+				DocumentSnapshot document = null;
+				if (cache != null) {
+					document = cache.get(path, key);
+					monitor.cache(path, document != null);
+				}
+				if (document == null) {
+					misses.add(key);
+				} else {
+					documents.put(key, document);
 				}
 			}
-			delete(blobPaths);
 		}
-		if (adapter != null) {
-			Class<?> proxyType = source.compile(adapter.getName());
-			try {
-				T object = type.getConstructor().newInstance();
-				Object proxy = proxyType.getDeclaredConstructor(type).newInstance(object);
-				for (String name : values.keySet()) {
-					String methodPrefix = name.substring(0, 1).toUpperCase();
-					String methodSuffix = name.substring(1);
-					String methodName = "get%s%s".formatted(methodPrefix, methodSuffix);
-					try {
-						Method method = proxyType.getDeclaredMethod(methodName);
-						Field field = type.getDeclaredField(name);
-						field.setAccessible(true);
-						field.set(object, values.get(name));
-						values.put(name, method.invoke(proxy));
-					} catch (NoSuchMethodException exception) {
+		List<CompletableFuture<Void>> lanes = new ArrayList<>();
+		for (int i = 0; i < misses.size(); i += GET_LIMIT) {
+			List<String> chunk = misses.subList(i, Math.min(i + GET_LIMIT, misses.size()));
+			int lane = (i / GET_LIMIT) % parallelism;
+			CompletableFuture<Void> previous;
+			if (lane < lanes.size()) {
+				previous = lanes.get(lane);
+			} else {
+				previous = CompletableFuture.completedFuture(null);
+				lanes.add(previous);
+			}
+			lanes.set(lane, previous.thenCompose(none -> fetch(chunk)).thenAccept(snapshots -> {
+				for (DocumentSnapshot snapshot : snapshots) {
+					if (snapshot.exists()) {
+						documents.put(snapshot.getId(), snapshot);
 					}
 				}
-			} catch (NoSuchMethodException exception) {
-				throw new BytecodeFirestoreException(exception);
-			} catch (InvocationTargetException exception) {
-				throw new BytecodeFirestoreException(exception);
-			} catch (IllegalAccessException exception) {
-				throw new BytecodeFirestoreException(exception);
-			} catch (InstantiationException exception) {
-				throw new BytecodeFirestoreException(exception);
-			} catch (NoSuchFieldException exception) {
-				throw new BytecodeFirestoreException(exception);
+			}));
+		}
+		return observe(monitor, span, Operation.RETRIEVE_ALL, start, CompletableFuture.allOf(lanes.toArray(new CompletableFuture<?>[0])).thenApply(none -> {
+			Map<String, T> values = new LinkedHashMap<>();
+			for (String key : keys) {
+				DocumentSnapshot document = documents.get(key);
+				if (document != null) {
+					values.put(key, postRetrieve(document, mirror));
+				}
 			}
+			monitor.documents(path, Operation.RETRIEVE_ALL, values.size());
+			return values;
+		}));
+	}
+
+	public CompletableFuture<Map<String, T>> retrieveAllAsync(Collection<?> rawKeys) {
+		return retrieveAllAsync(rawKeys, null);
+	}
+
+	public Map<String, T> retrieveAll(Collection<?> rawKeys, Class<? extends Adapter<T>> adapter) {
+		return Futures.await(retrieveAllAsync(rawKeys, adapter));
+	}
+
+	public Map<String, T> retrieveAll(Collection<?> rawKeys) {
+		return retrieveAll(rawKeys, null);
+	}
+
+	public CompletableFuture<List<T>> retrieveAsync(Selection selection, Class<? extends Adapter<T>> adapter) {
+		validate(selection);
+		Mirror mirror = mirror(adapter);
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.SELECT);
+		List<DocumentSnapshot> documents = replicated(selection);
+		CompletableFuture<List<T>> future;
+		if (documents == null) {
+			future = selection.getDocuments().thenApply(snapshot -> {
+				monitor.documents(path, Operation.SELECT, snapshot.size());
+				return postRetrieve(snapshot, mirror);
+			});
+		} else {
+			future = CompletableFuture.completedFuture(documents).thenApply(replicas -> {
+				monitor.documents(path, Operation.SELECT, replicas.size());
+				return postRetrieve(replicas, mirror);
+			});
 		}
+		return observe(monitor, span, Operation.SELECT, start, future);
+	}
+
+	public CompletableFuture<List<T>> retrieveAsync(Selection selection) {
+		return retrieveAsync(selection, null);
+	}
+
+	public List<T> retrieve(Selection selection, Class<? extends Adapter<T>> adapter) {
+		return Futures.await(retrieveAsync(selection, adapter));
+	}
+
+	public List<T> retrieve(Selection selection) {
+		return retrieve(selection, null);
+	}
+
+	public Stream<T> stream(Selection selection, Class<? extends Adapter<T>> adapter) {
+		validate(selection);
+		Mirror mirror = mirror(adapter);
+		List<DocumentSnapshot> replicas = replicated(selection);
+		Iterator<DocumentSnapshot> iterator;
+		if (replicas == null) {
+			iterator = selection.iterate();
+		} else {
+			iterator = replicas.iterator();
+		}
+		Spliterator<DocumentSnapshot> documents = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(documents, false).map(document -> postRetrieve(document, mirror));
+	}
+
+	public Stream<T> stream(Selection selection) {
+		return stream(selection, null);
+	}
+
+	T retrieve(Session session, Object rawKey, Class<? extends Adapter<T>> adapter) {
+		String key = convert(rawKey);
+		validate(session);
+		Mirror mirror = mirror(adapter);
+		DocumentSnapshot document;
 		try {
-			document.update(values).get();
+			document = session.getTransaction().get(collection.document(key)).get();
 		} catch (ExecutionException exception) {
-			throw new ExecutionFirestoreException(exception);
+			throw translate(exception, key);
 		} catch (InterruptedException exception) {
 			throw new InterruptedFirestoreException(exception);
 		}
+		if (!document.exists()) {
+			return null;
+		}
+		return postRetrieve(document, mirror);
+	}
+
+	void create(Session session, T object, Class<? extends Adapter<T>> adapter) {
+		validate(object);
+		validate(session);
+		DocumentReference document = preCreate(object);
+		String key = document.getId();
+		session.getTransaction().create(document, adapt(object, adapter));
+		session.addCallback(() -> invalidate(key));
+	}
+
+	void update(Session session, T object, Class<? extends Adapter<T>> adapter) {
+		validate(object);
+		validate(session);
+		String key = convert(keyField.get(object));
+		DocumentReference document = collection.document(key);
+		session.getTransaction().update(document, keyField.getName(), FieldValue.delete());
+		session.getTransaction().set(document, adapt(object, adapter));
+		List<String> blobPaths = new ArrayList<>();
+		for (String name : fileFields.keySet()) {
+			Property field = fileFields.get(name);
+			if (field.get(object) == null) {
+				blobPaths.add(join(key, name));
+			}
+		}
+		session.addCallback(() -> {
+			invalidate(key);
+			discard(blobPaths);
+		});
+	}
+
+	void delete(Session session, Object rawKey) {
+		String key = convert(rawKey);
+		validate(session);
+		session.getTransaction().delete(collection.document(key));
+		List<String> blobPaths = new ArrayList<>();
+		for (String name : fileFields.keySet()) {
+			blobPaths.add(join(key, name));
+		}
+		session.addCallback(() -> {
+			invalidate(key);
+			discard(blobPaths);
+		});
+	}
+
+	public CompletableFuture<T> transactAsync(Object rawKey, Function<T, T> function, Class<? extends Adapter<T>> adapter) {
+		String key = convert(rawKey);
+		if (function == null) {
+			throw new IllegalArgumentException("Function cannot be null");
+		}
+		ready();
+		Mirror mirror = mirror(adapter);
+		DocumentReference document = collection.document(key);
+		TransactionOptions options = TransactionOptions.createReadWriteOptionsBuilder()
+				.setNumberOfAttempts(attempts)
+				.build();
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.TRANSACT);
+		return observe(monitor, span, Operation.TRANSACT, start, Futures.of(firestore.runTransaction(transaction -> {
+			DocumentSnapshot snapshot = transaction.get(document).get();
+			T object;
+			if (snapshot.exists()) {
+				object = postRetrieve(snapshot, mirror);
+			} else {
+				object = null;
+			}
+			object = function.apply(object);
+			if (object != null) {
+				if (!key.equals(convert(keyField.get(object)))) {
+					throw new IllegalArgumentException("Key of object must be %s".formatted(key));
+				}
+				transaction.set(document, adapt(object, adapter));
+			}
+			return object;
+		}, options), exception -> rethrow(exception, key)).whenComplete((result, exception) -> {
+			invalidate(key);
+		}));
+	}
+
+	public CompletableFuture<T> transactAsync(Object rawKey, Function<T, T> function) {
+		return transactAsync(rawKey, function, null);
+	}
+
+	public T transact(Object rawKey, Function<T, T> function, Class<? extends Adapter<T>> adapter) {
+		return Futures.await(transactAsync(rawKey, function, adapter));
+	}
+
+	public T transact(Object rawKey, Function<T, T> function) {
+		return transact(rawKey, function, null);
+	}
+
+	String prepare(Map<String, Object> values, Class<? extends Adapter<T>> adapter) {
+		String key = validate(values);
+		for (String name : fileFields.keySet()) {
+			if (values.containsKey(name)) {
+				throw new IllegalArgumentException("File field %s cannot be buffered".formatted(name));
+			}
+		}
+		if (adapter != null) {
+			adapt(values, adapter);
+		}
+		return key;
+	}
+
+	Report update(List<String> keys, List<Map<String, Object>> values) {
+		ready();
+		Report report = new Report();
+		BulkWriter writer = firestore.bulkWriter();
+		Deque<List<Write>> chunks = new ArrayDeque<>();
+		List<Write> writes = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			int index = report.add();
+			String key = keys.get(i);
+			report.setKey(index, key);
+			writes.add(new Write(index, key, writer.update(collection.document(key), values.get(i))));
+			if (writes.size() == BULK_LIMIT) {
+				push(chunks, writes, writer, report, false);
+				writes = new ArrayList<>();
+			}
+		}
+		if (!writes.isEmpty()) {
+			chunks.addLast(writes);
+		}
+		finish(chunks, writer, report, false);
+		return report;
+	}
+
+	public Buffer<T> buffer(int capacity, Duration interval) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Buffer capacity must be positive");
+		}
+		if (interval == null) {
+			throw new IllegalArgumentException("Buffer interval cannot be null");
+		}
+		if (interval.isNegative() || interval.isZero()) {
+			throw new IllegalArgumentException("Buffer interval must be positive");
+		}
+		ready();
+		return new Buffer<>(this, capacity, interval);
+	}
+
+	public CompletableFuture<Long> countAsync(Selection selection) {
+		validate(selection);
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.COUNT);
+		return observe(monitor, span, Operation.COUNT, start, CompletableFuture.supplyAsync(() -> {
+			Iterator<DocumentSnapshot> documents = scan(selection, null);
+			long count = 0;
+			while (documents.hasNext()) {
+				documents.next();
+				count++;
+			}
+			monitor.documents(path, Operation.COUNT, count);
+			return count;
+		}, scanner));
+	}
+
+	public long count(Selection selection) {
+		return Futures.await(countAsync(selection));
+	}
+
+	public CompletableFuture<Number> sumAsync(Selection selection, String name) {
+		String field = Selection.clean(name);
+		validate(selection);
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.SUM);
+		return observe(monitor, span, Operation.SUM, start, CompletableFuture.supplyAsync(() -> {
+			Aggregate aggregate = aggregate(scan(selection, field), field);
+			monitor.documents(path, Operation.SUM, aggregate.count());
+			return aggregate.sum();
+		}, scanner));
+	}
+
+	public Number sum(Selection selection, String name) {
+		return Futures.await(sumAsync(selection, name));
+	}
+
+	public CompletableFuture<Double> averageAsync(Selection selection, String name) {
+		String field = Selection.clean(name);
+		validate(selection);
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.AVERAGE);
+		return observe(monitor, span, Operation.AVERAGE, start, CompletableFuture.supplyAsync(() -> {
+			Aggregate aggregate = aggregate(scan(selection, field), field);
+			monitor.documents(path, Operation.AVERAGE, aggregate.count());
+			if (aggregate.count() == 0) {
+				return null;
+			}
+			return aggregate.sum().doubleValue() / aggregate.count();
+		}, scanner));
+	}
+
+	public Double average(Selection selection, String name) {
+		return Futures.await(averageAsync(selection, name));
+	}
+
+	public CompletableFuture<Void> updateAsync(T object, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
+		validate(object);
+		Object rawKey = keyField.get(object);
+		String key = convert(rawKey);
+		if (streams != null) {
+			validate(object, streams);
+		}
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.UPDATE);
+		if (optimistic && streams == null) {
+			return observe(monitor, span, Operation.UPDATE, start, postUpdate(object, collection.document(key), adapter, false));
+		}
+		CompletableFuture<DocumentReference> future = preUpdate(key);
+		if (streams != null) {
+			future = future.thenCompose(document -> createOrUpdate(object, streams, key).thenCompose(none -> {
+				List<String> blobPaths = new ArrayList<>();
+				for (String name : fileFields.keySet()) {
+					Property field = fileFields.get(name);
+					if (field.get(object) == null) {
+						blobPaths.add(join(key, name));
+					}
+				}
+				return discard(blobPaths);
+			}).thenApply(none -> document));
+		}
+		return observe(monitor, span, Operation.UPDATE, start, future.thenCompose(document -> postUpdate(object, document, adapter, true)));
+	}
+
+	public CompletableFuture<Void> updateAsync(T object, Map<String, InputStream> streams) {
+		return updateAsync(object, streams, null);
+	}
+
+	public CompletableFuture<Void> updateAsync(T object, Class<? extends Adapter<T>> adapter) {
+		return updateAsync(object, null, adapter);
+	}
+
+	public CompletableFuture<Void> updateAsync(T object) {
+		return updateAsync(object, null, null);
+	}
+
+	public void update(T object, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
+		Futures.await(updateAsync(object, streams, adapter));
+	}
+
+	public void update(T object, Map<String, InputStream> streams) {
+		update(object, streams, null);
+	}
+
+	public void update(T object, Class<? extends Adapter<T>> adapter) {
+		update(object, null, adapter);
+	}
+
+	public void update(T object) {
+		update(object, null, null);
+	}
+
+	public Report updateAll(Collection<T> objects, Class<? extends Adapter<T>> adapter) {
+		validate(objects);
+		Report report = new Report();
+		BulkWriter writer = firestore.bulkWriter();
+		Deque<List<Write>> chunks = new ArrayDeque<>();
+		List<Item> items = new ArrayList<>();
+		for (T object : objects) {
+			int index = report.add();
+			try {
+				if (object == null) {
+					throw new IllegalArgumentException("Object cannot be null");
+				}
+				Object rawKey = keyField.get(object);
+				String key = convert(rawKey);
+				report.setKey(index, key);
+				items.add(new Item(index, key, collection.document(key), adapt(object, adapter)));
+			} catch (RuntimeException exception) {
+				report.setException(index, exception);
+			}
+			if (items.size() == BULK_LIMIT) {
+				push(chunks, submitUpdate(items, writer, report), writer, report, false);
+				items.clear();
+			}
+		}
+		if (!items.isEmpty()) {
+			chunks.addLast(submitUpdate(items, writer, report));
+		}
+		finish(chunks, writer, report, false);
+		return report;
+	}
+
+	public Report updateAll(Collection<T> objects) {
+		return updateAll(objects, null);
+	}
+
+	public CompletableFuture<Void> updateAsync(Map<String, Object> values, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
+		String key = validate(values);
+		List<String> deletions = new ArrayList<>();
+		for (String name : fileFields.keySet()) {
+			Object value = values.get(name);
+			if (value instanceof FieldValue) {
+				if (!value.equals(FieldValue.delete())) {
+					throw new IllegalArgumentException("File field %s can only be deleted".formatted(name));
+				}
+				deletions.add(join(key, name));
+			}
+		}
+		if (streams != null) {
+			validate(values, streams);
+		}
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.UPDATE);
+		CompletableFuture<DocumentReference> future;
+		if (optimistic && streams == null) {
+			future = CompletableFuture.completedFuture(collection.document(key));
+		} else {
+			future = preUpdate(key);
+		}
+		if (streams != null) {
+			future = future.thenCompose(document -> createOrUpdate(values, streams, key).thenCompose(none -> {
+				List<String> blobPaths = new ArrayList<>();
+				for (String name : fileFields.keySet()) {
+					if (values.containsKey(name) && values.get(name) == null) {
+						blobPaths.add(join(key, name));
+					}
+				}
+				return discard(blobPaths);
+			}).thenApply(none -> document));
+		}
+		return observe(monitor, span, Operation.UPDATE, start, future.thenCompose(document -> {
+			if (adapter != null) {
+				adapt(values, adapter);
+			}
+			return Futures.of(document.update(values), exception -> translate(exception, key));
+		}).whenComplete((result, exception) -> {
+			invalidate(key);
+		}).thenCompose(result -> discard(deletions)));
+	}
+
+	public CompletableFuture<Void> updateAsync(Map<String, Object> values, Map<String, InputStream> streams) {
+		return updateAsync(values, streams, null);
+	}
+
+	public CompletableFuture<Void> updateAsync(Map<String, Object> values, Class<? extends Adapter<T>> adapter) {
+		return updateAsync(values, null, adapter);
+	}
+
+	public CompletableFuture<Void> updateAsync(Map<String, Object> values) {
+		return updateAsync(values, null, null);
+	}
+
+	public void update(Map<String, Object> values, Map<String, InputStream> streams, Class<? extends Adapter<T>> adapter) {
+		Futures.await(updateAsync(values, streams, adapter));
 	}
 
 	public void update(Map<String, Object> values, Map<String, InputStream> streams) {
@@ -603,41 +1659,73 @@ public abstract class DAO<T> {
 		update(values, null, null);
 	}
 
-	public void delete(Object rawKey) {
+	public CompletableFuture<Void> deleteAsync(Object rawKey) {
 		String key = convert(rawKey);
 		ready();
-		try {
-			collection.document(key).delete().get();
-		} catch (ExecutionException exception) {
-			throw new ExecutionFirestoreException(exception);
-		} catch (InterruptedException exception) {
-			throw new InterruptedFirestoreException(exception);
-		}
-		List<String> blobPaths = new ArrayList<>();
-		for (String name : fileFields.keySet()) {
-			blobPaths.add(join(key, name));
+		Monitor monitor = firebase.getMonitor();
+		long start = System.nanoTime();
+		Object span = monitor.start(path, Operation.DELETE);
+		CompletableFuture<Void> future = firebase.getRetryPolicy().call(collection.document(key)::delete).whenComplete((result, exception) -> {
+			invalidate(key);
+		}).thenAccept(result -> {
+		});
+		if (!fileFields.isEmpty()) {
+			future = future.thenCompose(none -> {
+				List<String> blobPaths = new ArrayList<>();
+				for (String name : fileFields.keySet()) {
+					blobPaths.add(join(key, name));
+				}
+				return discard(blobPaths);
+			});
 		}
-		delete(blobPaths);
+		return observe(monitor, span, Operation.DELETE, start, future);
 	}
 
-	public void delete(Selection selection) {
-		validate(selection);
-		WriteBatch batch = firestore.batch();
-		List<String> blobPaths = new ArrayList<>();
-		for (DocumentSnapshot document : selection.getDocuments()) {
-			batch.delete(document.getReference());
-			String key = document.getId();
-			for (String name : fileFields.keySet()) {
-				blobPaths.add(join(key, name));
+	public void delete(Object rawKey) {
+		Futures.await(deleteAsync(rawKey));
+	}
+
+	public Report deleteAll(Collection<?> rawKeys) {
+		validate(rawKeys);
+		Report report = new Report();
+		BulkWriter writer = firestore.bulkWriter();
+		Deque<List<Write>> chunks = new ArrayDeque<>();
+		List<Item> items = new ArrayList<>();
+		for (Object rawKey : rawKeys) {
+			int index = report.add();
+			try {
+				String key = convert(rawKey);
+				report.setKey(index, key);
+				items.add(new Item(index, key, collection.document(key), null));
+			} catch (RuntimeException exception) {
+				report.setException(index, exception);
+			}
+			if (items.size() == BULK_LIMIT) {
+				push(chunks, submitDelete(items, writer), writer, report, true);
+				items.clear();
 			}
 		}
-		try {
-			batch.commit().get();
-		} catch (ExecutionException exception) {
-			throw new ExecutionFirestoreException(exception);
-		} catch (InterruptedException exception) {
-			throw new InterruptedFirestoreException(exception);
+		if (!items.isEmpty()) {
+			chunks.addLast(submitDelete(items, writer));
 		}
-		delete(blobPaths);
+		finish(chunks, writer, report, true);
+		return report;
+	}
+
+	public CompletableFuture<Void> deleteAsync(Selection selection, LongConsumer progress) {
+		validate(selection);
+		return CompletableFuture.runAsync(() -> purge(selection, progress), scanner);
+	}
+
+	public CompletableFuture<Void> deleteAsync(Selection selection) {
+		return deleteAsync(selection, null);
+	}
+
+	public void delete(Selection selection, LongConsumer progress) {
+		Futures.await(deleteAsync(selection, progress));
+	}
+
+	public void delete(Selection selection) {
+		Futures.await(deleteAsync(selection));
 	}
 }
@@ -1,23 +1,41 @@
 package br.pro.hashi.nfp.dao;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.BaseServiceException;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.TransactionOptions;
 import com.google.cloud.storage.Bucket;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.FirestoreClient;
 import com.google.firebase.cloud.StorageClient;
 
+import br.pro.hashi.nfp.dao.Monitor.Operation;
+import br.pro.hashi.nfp.dao.exception.ExecutionFirestoreException;
 import br.pro.hashi.nfp.dao.exception.UnavailableFirebaseException;
 
 public class Firebase {
 	private static final FirebaseManager MANAGER = new FirebaseManager();
+	private static final int POOL_SIZE = 16;
+	private static final int SCAN_POOL_SIZE = 8;
+	private static final long SCAN_KEEP_ALIVE = 60;
 
 	public static FirebaseManager manager() {
 		return MANAGER;
@@ -27,10 +45,15 @@ public class Firebase {
 	private final FirebaseManager manager;
 	private final FirebaseOptions options;
 	private final String id;
-	private FirebaseApp app;
-	private Firestore firestore;
-	private Map<String, CollectionReference> collections;
-	private Bucket bucket;
+	private volatile FirebaseApp app;
+	private volatile Firestore firestore;
+	private volatile Map<String, CollectionReference> collections;
+	private volatile Bucket bucket;
+	private volatile ExecutorService executor;
+	private volatile ExecutorService scanner;
+	private volatile int generation;
+	private volatile RetryPolicy retryPolicy;
+	private volatile Monitor monitor;
 
 	Firebase(FirebaseManager manager, FirebaseOptions options, String id) {
 		this.logger = LoggerFactory.getLogger(Firebase.class);
@@ -41,6 +64,11 @@ public class Firebase {
 		this.firestore = null;
 		this.collections = null;
 		this.bucket = null;
+		this.executor = null;
+		this.scanner = null;
+		this.generation = 0;
+		this.retryPolicy = RetryPolicy.NONE;
+		this.monitor = Monitor.NONE;
 	}
 
 	String getId() {
@@ -55,20 +83,55 @@ public class Firebase {
 		return bucket;
 	}
 
+	ExecutorService getExecutor() {
+		return executor;
+	}
+
+	ExecutorService getScanner() {
+		return scanner;
+	}
+
+	int getGeneration() {
+		return generation;
+	}
+
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		if (retryPolicy == null) {
+			throw new IllegalArgumentException("Retry policy cannot be null");
+		}
+		this.retryPolicy = retryPolicy;
+	}
+
+	public Monitor getMonitor() {
+		return monitor;
+	}
+
+	public void setMonitor(Monitor monitor) {
+		if (monitor == null) {
+			throw new IllegalArgumentException("Monitor cannot be null");
+		}
+		this.monitor = monitor;
+	}
+
 	Source reflect(Class<?> type) {
 		return manager.reflect(type);
 	}
 
 	CollectionReference collection(String path) {
+		Map<String, CollectionReference> collections = this.collections;
 		CollectionReference collection = collections.get(path);
 		if (collection == null) {
-			collection = firestore.collection(path);
-			collections.put(path, collection);
+			Firestore firestore = this.firestore;
+			collection = collections.computeIfAbsent(path, firestore::collection);
 		}
 		return collection;
 	}
 
-	public void connect() {
+	public synchronized void connect() {
 		if (!manager.contains(this)) {
 			throw new UnavailableFirebaseException("Firebase instance has been deleted");
 		}
@@ -79,26 +142,93 @@ public class Firebase {
 		app = FirebaseApp.initializeApp(options, id);
 		String url = "%s.appspot.com".formatted(id);
 		firestore = FirestoreClient.getFirestore(app);
-		collections = new HashMap<>();
+		collections = new ConcurrentHashMap<>();
 		bucket = StorageClient.getInstance(app).bucket(url);
+		executor = Executors.newFixedThreadPool(POOL_SIZE, runnable -> {
+			Thread thread = new Thread(runnable, "nfp-dao-%s".formatted(id));
+			thread.setDaemon(true);
+			return thread;
+		});
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(SCAN_POOL_SIZE, SCAN_POOL_SIZE, SCAN_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "nfp-dao-%s-scan".formatted(id));
+			thread.setDaemon(true);
+			return thread;
+		});
+		pool.allowCoreThreadTimeOut(true);
+		scanner = pool;
+		generation++;
 		logger.info("Firebase instance connected to %s".formatted(id));
 	}
 
-	public void disconnect() {
+	public synchronized void disconnect() {
 		if (app == null) {
 			return;
 		}
 		logger.info("Disconnecting Firebase instance from %s...".formatted(id));
+		executor.shutdown();
+		executor = null;
+		scanner.shutdown();
+		scanner = null;
 		bucket = null;
 		collections = null;
 		firestore = null;
 		app.delete();
 		app = null;
+		generation++;
 		logger.info("Firebase instance disconnected");
 	}
 
-	public void delete() {
+	public <V> CompletableFuture<V> runTransactionAsync(Function<Session, V> function, int attempts) {
+		if (function == null) {
+			throw new IllegalArgumentException("Function cannot be null");
+		}
+		if (attempts < 1) {
+			throw new IllegalArgumentException("Number of attempts must be positive");
+		}
+		connect();
+		Firestore firestore = this.firestore;
+		List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+		TransactionOptions options = TransactionOptions.createReadWriteOptionsBuilder()
+				.setNumberOfAttempts(attempts)
+				.build();
+		Monitor monitor = this.monitor;
+		long start = System.nanoTime();
+		Object span = monitor.start(null, Operation.TRANSACT);
+		ApiFuture<V> future = firestore.runTransaction(transaction -> {
+			callbacks.clear();
+			return function.apply(new Session(firestore, transaction, callbacks));
+		}, options);
+		return Futures.of(future, exception -> {
+			Throwable cause = exception.getCause();
+			if (cause instanceof RuntimeException && !(cause instanceof ApiException) && !(cause instanceof BaseServiceException)) {
+				return (RuntimeException) cause;
+			}
+			return new ExecutionFirestoreException(exception);
+		}).whenComplete((result, exception) -> {
+			if (exception == null) {
+				for (Runnable callback : callbacks) {
+					callback.run();
+				}
+			}
+			monitor.stop(span, null, Operation.TRANSACT, System.nanoTime() - start, exception);
+		});
+	}
+
+	public <V> CompletableFuture<V> runTransactionAsync(Function<Session, V> function) {
+		return runTransactionAsync(function, Session.ATTEMPTS);
+	}
+
+	public <V> V runTransaction(Function<Session, V> function, int attempts) {
+		return Futures.await(runTransactionAsync(function, attempts));
+	}
+
+	public <V> V runTransaction(Function<Session, V> function) {
+		return runTransaction(function, Session.ATTEMPTS);
+	}
+
+	public synchronized void delete() {
 		disconnect();
 		manager.remove(this);
+		generation++;
 	}
 }
@@ -2,9 +2,9 @@ package br.pro.hashi.nfp.dao;
 
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.firebase.FirebaseOptions;
@@ -15,11 +15,11 @@ import br.pro.hashi.nfp.dao.exception.UnavailableFirebaseException;
 public class FirebaseManager {
 	private final Map<Class<?>, Source> sources;
 	private final Map<String, Firebase> instances;
-	private Firebase instance;
+	private volatile Firebase instance;
 
 	FirebaseManager() {
-		this.sources = new HashMap<>();
-		this.instances = new HashMap<>();
+		this.sources = new ConcurrentHashMap<>();
+		this.instances = new ConcurrentHashMap<>();
 		this.instance = null;
 	}
 
@@ -41,21 +41,26 @@ public class FirebaseManager {
 	Source reflect(Class<?> type) {
 		Source source = sources.get(type);
 		if (source == null) {
-			source = new Source(type);
-			sources.put(type, source);
+			source = sources.computeIfAbsent(type, Source::new);
 		}
 		return source;
 	}
 
+	private void evict(Source source) {
+		Codec.remove(source.getType());
+		for (Class<?> proxyType : source.getProxyTypes()) {
+			Codec.remove(proxyType);
+		}
+	}
+
 	boolean contains(Firebase firebase) {
 		String id = firebase.getId();
 		return instances.get(id) == firebase;
 	}
 
-	void remove(Firebase firebase) {
+	synchronized void remove(Firebase firebase) {
 		String id = firebase.getId();
-		if (instances.get(id) == firebase) {
-			instances.remove(id);
+		if (instances.remove(id, firebase)) {
 			if (instance == firebase) {
 				Iterator<String> key = instances.keySet().iterator();
 				if (key.hasNext()) {
@@ -86,18 +91,20 @@ public class FirebaseManager {
 
 		String id = credentials.getProjectId();
 
-		Firebase firebase = instances.get(id);
-		if (firebase == null) {
-			FirebaseOptions options = FirebaseOptions.builder()
-					.setCredentials(credentials)
-					.build();
-			firebase = new Firebase(this, options, id);
-			instances.put(id, firebase);
-			if (instance == null) {
-				instance = firebase;
+		synchronized (this) {
+			Firebase firebase = instances.get(id);
+			if (firebase == null) {
+				FirebaseOptions options = FirebaseOptions.builder()
+						.setCredentials(credentials)
+						.build();
+				firebase = new Firebase(this, options, id);
+				instances.put(id, firebase);
+				if (instance == null) {
+					instance = firebase;
+				}
 			}
+			return firebase;
 		}
-		return firebase;
 	}
 
 	public Firebase get(String id) {
@@ -105,13 +112,43 @@ public class FirebaseManager {
 	}
 
 	public Firebase get() {
-		if (instance == null) {
+		Firebase firebase = instance;
+		if (firebase == null) {
 			throw new UnavailableFirebaseException("Firebase instances do not exist");
 		}
-		return instance;
+		return firebase;
 	}
 
-	public void set(String id) {
+	public synchronized void set(String id) {
 		instance = doGet(id);
 	}
+
+	public void evict(Class<?> type) {
+		if (type == null) {
+			throw new IllegalArgumentException("Class cannot be null");
+		}
+		Source source = sources.remove(type);
+		if (source != null) {
+			evict(source);
+		}
+	}
+
+	public void evict(ClassLoader loader) {
+		if (loader == null) {
+			throw new IllegalArgumentException("Class loader cannot be null");
+		}
+		Iterator<Source> iterator = sources.values().iterator();
+		while (iterator.hasNext()) {
+			Source source = iterator.next();
+			if (source.getType().getClassLoader() == loader) {
+				iterator.remove();
+				evict(source);
+			} else {
+				for (Class<?> proxyType : source.evict(loader)) {
+					Codec.remove(proxyType);
+				}
+			}
+		}
+		Codec.remove(loader);
+	}
 }
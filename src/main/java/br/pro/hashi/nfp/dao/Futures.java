@@ -0,0 +1,73 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode.Code;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import br.pro.hashi.nfp.dao.exception.ExecutionFirestoreException;
+import br.pro.hashi.nfp.dao.exception.InterruptedFirestoreException;
+
+final class Futures {
+	static <V> CompletableFuture<V> of(ApiFuture<V> apiFuture, Function<ExecutionException, RuntimeException> translator) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+		ApiFutures.addCallback(apiFuture, new ApiFutureCallback<V>() {
+			@Override
+			public void onSuccess(V result) {
+				future.complete(result);
+			}
+
+			@Override
+			public void onFailure(Throwable throwable) {
+				future.completeExceptionally(translator.apply(new ExecutionException(throwable)));
+			}
+		}, MoreExecutors.directExecutor());
+		return future;
+	}
+
+	static <V> CompletableFuture<V> of(ApiFuture<V> apiFuture) {
+		return of(apiFuture, ExecutionFirestoreException::new);
+	}
+
+	static Code code(Throwable throwable) {
+		while (throwable != null) {
+			if (throwable instanceof ApiException) {
+				return ((ApiException) throwable).getStatusCode().getCode();
+			}
+			if (throwable instanceof com.google.cloud.firestore.FirestoreException) {
+				io.grpc.Status status = ((com.google.cloud.firestore.FirestoreException) throwable).getStatus();
+				if (status != null) {
+					return Code.valueOf(status.getCode().name());
+				}
+			}
+			throwable = throwable.getCause();
+		}
+		return null;
+	}
+
+	static <V> V await(CompletableFuture<V> future) {
+		try {
+			return future.get();
+		} catch (ExecutionException exception) {
+			Throwable cause = exception.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ExecutionFirestoreException(exception);
+		} catch (InterruptedException exception) {
+			throw new InterruptedFirestoreException(exception);
+		}
+	}
+
+	private Futures() {
+	}
+}
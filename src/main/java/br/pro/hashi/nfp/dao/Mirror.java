@@ -0,0 +1,103 @@
+package br.pro.hashi.nfp.dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import br.pro.hashi.nfp.dao.exception.BytecodeFirestoreException;
+
+class Mirror {
+	private static final MethodType WRAP_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodHandle THAT;
+
+	static {
+		try {
+			THAT = MethodHandles.lookup().findGetter(Adapter.class, "that", Object.class).asType(WRAP_TYPE);
+		} catch (NoSuchFieldException exception) {
+			throw new BytecodeFirestoreException(exception);
+		} catch (IllegalAccessException exception) {
+			throw new BytecodeFirestoreException(exception);
+		}
+	}
+
+	private final Class<?> type;
+	private final MethodHandle constructor;
+	private final Map<String, Property> getters;
+	private volatile Codec codec;
+	private volatile boolean compiled;
+
+	Mirror(Class<?> type, Class<?> thatType, Set<String> names) {
+		Lookup lookup = MethodHandles.lookup();
+		try {
+			this.constructor = lookup.unreflectConstructor(type.getDeclaredConstructor(thatType)).asType(WRAP_TYPE);
+		} catch (NoSuchMethodException exception) {
+			throw new BytecodeFirestoreException(exception);
+		} catch (IllegalAccessException exception) {
+			throw new BytecodeFirestoreException(exception);
+		}
+		Map<String, Property> getters = new HashMap<>();
+		for (String name : names) {
+			String methodPrefix = name.substring(0, 1).toUpperCase();
+			String methodSuffix = name.substring(1);
+			String methodName = "get%s%s".formatted(methodPrefix, methodSuffix);
+			try {
+				Method method = type.getMethod(methodName);
+				getters.put(name, new Property(name, method));
+			} catch (NoSuchMethodException exception) {
+			}
+		}
+		this.type = type;
+		this.getters = getters;
+		this.codec = null;
+		this.compiled = false;
+	}
+
+	Class<?> getType() {
+		return type;
+	}
+
+	Property getGetter(String name) {
+		return getters.get(name);
+	}
+
+	Codec getCodec() {
+		if (!compiled) {
+			synchronized (this) {
+				if (!compiled) {
+					codec = Codec.of(type);
+					compiled = true;
+				}
+			}
+		}
+		return codec;
+	}
+
+	Object wrap(Object object) {
+		try {
+			return (Object) constructor.invokeExact(object);
+		} catch (RuntimeException exception) {
+			throw exception;
+		} catch (Error error) {
+			throw error;
+		} catch (Throwable throwable) {
+			throw new BytecodeFirestoreException(throwable);
+		}
+	}
+
+	Object unwrap(Object proxy) {
+		try {
+			return (Object) THAT.invokeExact(proxy);
+		} catch (RuntimeException exception) {
+			throw exception;
+		} catch (Error error) {
+			throw error;
+		} catch (Throwable throwable) {
+			throw new BytecodeFirestoreException(throwable);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package br.pro.hashi.nfp.dao;
+
+public interface Monitor {
+	enum Operation {
+		CREATE, RETRIEVE, RETRIEVE_ALL, SELECT, COUNT, SUM, AVERAGE, TRANSACT, UPDATE, DELETE, CHECK, UPLOAD, WRITE, TRANSFER
+	}
+
+	Monitor NONE = new Monitor() {
+	};
+
+	default Object start(String path, Operation operation) {
+		return null;
+	}
+
+	default void stop(Object span, String path, Operation operation, long nanos, Throwable exception) {
+	}
+
+	default void documents(String path, Operation operation, long count) {
+	}
+
+	default void bytes(String path, Operation operation, long count) {
+	}
+
+	default void cache(String path, boolean hit) {
+	}
+
+	default void compilation(String path, Class<?> adapter, boolean generated, long nanos) {
+	}
+}
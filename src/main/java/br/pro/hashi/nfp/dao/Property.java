@@ -0,0 +1,83 @@
+package br.pro.hashi.nfp.dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import br.pro.hashi.nfp.dao.exception.AccessFirestoreException;
+import br.pro.hashi.nfp.dao.exception.BytecodeFirestoreException;
+
+class Property {
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private final String name;
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+
+	Property(Field field) {
+		Lookup lookup = MethodHandles.lookup();
+		field.setAccessible(true);
+		MethodHandle setter;
+		try {
+			this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+		} catch (IllegalAccessException exception) {
+			throw new AccessFirestoreException(exception);
+		}
+		try {
+			setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+		} catch (IllegalAccessException exception) {
+			setter = null;
+		}
+		this.name = field.getName();
+		this.setter = setter;
+	}
+
+	Property(String name, Method method) {
+		Lookup lookup = MethodHandles.lookup();
+		method.setAccessible(true);
+		try {
+			this.getter = lookup.unreflect(method).asType(GETTER_TYPE);
+		} catch (IllegalAccessException exception) {
+			throw new AccessFirestoreException(exception);
+		}
+		this.name = name;
+		this.setter = null;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	Object get(Object object) {
+		try {
+			return (Object) getter.invokeExact(object);
+		} catch (RuntimeException exception) {
+			throw exception;
+		} catch (Error error) {
+			throw error;
+		} catch (Throwable throwable) {
+			throw new BytecodeFirestoreException(throwable);
+		}
+	}
+
+	void set(Object object, Object value) {
+		if (setter == null) {
+			throw new AccessFirestoreException(new IllegalAccessException("Field %s cannot be set".formatted(name)));
+		}
+		try {
+			setter.invokeExact(object, value);
+		} catch (ClassCastException | NullPointerException exception) {
+			throw new IllegalArgumentException("Field %s cannot receive value %s".formatted(name, value));
+		} catch (RuntimeException exception) {
+			throw exception;
+		} catch (Error error) {
+			throw error;
+		} catch (Throwable throwable) {
+			throw new BytecodeFirestoreException(throwable);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import br.pro.hashi.nfp.dao.exception.InterruptedFirestoreException;
+
+public class Replica<T> implements AutoCloseable {
+	public enum Event {
+		ADDED, MODIFIED, REMOVED
+	}
+
+	public interface Listener<T> {
+		void onChange(Event event, String key, T object);
+	}
+
+	private final Logger logger;
+	private final Function<DocumentSnapshot, T> converter;
+	private final Map<String, DocumentSnapshot> documents;
+	private final List<Listener<T>> listeners;
+	private final CountDownLatch latch;
+	private final ListenerRegistration registration;
+	private volatile boolean ready;
+	private volatile boolean closed;
+
+	Replica(Query query, Function<DocumentSnapshot, T> converter) {
+		this.logger = LoggerFactory.getLogger(Replica.class);
+		this.converter = converter;
+		this.documents = new ConcurrentHashMap<>();
+		this.listeners = new CopyOnWriteArrayList<>();
+		this.latch = new CountDownLatch(1);
+		this.ready = false;
+		this.closed = false;
+		this.registration = query.addSnapshotListener(this::onEvent);
+	}
+
+	private void onEvent(QuerySnapshot snapshot, FirestoreException exception) {
+		if (exception != null) {
+			logger.warn("Replica stopped listening: %s".formatted(exception.getMessage()));
+			closed = true;
+			latch.countDown();
+			return;
+		}
+		for (DocumentChange change : snapshot.getDocumentChanges()) {
+			QueryDocumentSnapshot document = change.getDocument();
+			String key = document.getId();
+			Event event;
+			switch (change.getType()) {
+			case ADDED:
+				documents.put(key, document);
+				event = Event.ADDED;
+				break;
+			case MODIFIED:
+				documents.put(key, document);
+				event = Event.MODIFIED;
+				break;
+			default:
+				documents.remove(key);
+				event = Event.REMOVED;
+			}
+			if (!listeners.isEmpty()) {
+				notify(event, key, document);
+			}
+		}
+		ready = true;
+		latch.countDown();
+	}
+
+	private void notify(Event event, String key, DocumentSnapshot document) {
+		T object;
+		if (event == Event.REMOVED) {
+			object = null;
+		} else {
+			object = converter.apply(document);
+		}
+		for (Listener<T> listener : listeners) {
+			try {
+				listener.onChange(event, key, object);
+			} catch (RuntimeException exception) {
+				logger.warn("Replica listener failed: %s".formatted(exception.getMessage()));
+			}
+		}
+	}
+
+	DocumentSnapshot get(String key) {
+		return documents.get(key);
+	}
+
+	Collection<DocumentSnapshot> getDocuments() {
+		return documents.values();
+	}
+
+	public boolean isReady() {
+		return ready && !closed;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public void await() {
+		try {
+			latch.await();
+		} catch (InterruptedException exception) {
+			throw new InterruptedFirestoreException(exception);
+		}
+	}
+
+	public int size() {
+		return documents.size();
+	}
+
+	public void addListener(Listener<T> listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("Listener cannot be null");
+		}
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener<T> listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		registration.remove();
+		documents.clear();
+	}
+}
@@ -0,0 +1,59 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Report {
+	private final List<String> keys;
+	private final List<RuntimeException> exceptions;
+
+	Report() {
+		this.keys = new ArrayList<>();
+		this.exceptions = new ArrayList<>();
+	}
+
+	int add() {
+		keys.add(null);
+		exceptions.add(null);
+		return keys.size() - 1;
+	}
+
+	void addAll(Report report) {
+		keys.addAll(report.keys);
+		exceptions.addAll(report.exceptions);
+	}
+
+	void setKey(int index, String key) {
+		keys.set(index, key);
+	}
+
+	void setException(int index, RuntimeException exception) {
+		exceptions.set(index, exception);
+	}
+
+	public int size() {
+		return keys.size();
+	}
+
+	public String getKey(int index) {
+		return keys.get(index);
+	}
+
+	public RuntimeException getException(int index) {
+		return exceptions.get(index);
+	}
+
+	public boolean succeeded(int index) {
+		return exceptions.get(index) == null;
+	}
+
+	public int countFailures() {
+		int count = 0;
+		for (RuntimeException exception : exceptions) {
+			if (exception != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,167 @@
+package br.pro.hashi.nfp.dao;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.StatusCode.Code;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import br.pro.hashi.nfp.dao.exception.ExecutionFirestoreException;
+
+public class RetryPolicy {
+	public static final RetryPolicy NONE = new RetryPolicy(1, null, null, null, null);
+
+	private final int attempts;
+	private final long delay;
+	private final long maxDelay;
+	private final long timeout;
+	private final long hedge;
+	private final LongAdder calls;
+	private final LongAdder retries;
+	private final LongAdder timeouts;
+	private final LongAdder hedges;
+
+	private static long toNanos(Duration duration, String name) {
+		if (duration == null) {
+			return 0;
+		}
+		if (duration.isNegative() || duration.isZero()) {
+			throw new IllegalArgumentException("Retry %s must be positive".formatted(name));
+		}
+		return duration.toNanos();
+	}
+
+	public RetryPolicy(int attempts, Duration delay, Duration maxDelay, Duration timeout, Duration hedge) {
+		if (attempts < 1) {
+			throw new IllegalArgumentException("Number of attempts must be positive");
+		}
+		if (attempts > 1 && delay == null) {
+			throw new IllegalArgumentException("Retry delay cannot be null");
+		}
+		this.attempts = attempts;
+		this.delay = toNanos(delay, "delay");
+		this.maxDelay = maxDelay == null ? Long.MAX_VALUE : toNanos(maxDelay, "maximum delay");
+		this.timeout = toNanos(timeout, "timeout");
+		this.hedge = toNanos(hedge, "hedge delay");
+		this.calls = new LongAdder();
+		this.retries = new LongAdder();
+		this.timeouts = new LongAdder();
+		this.hedges = new LongAdder();
+	}
+
+	public RetryPolicy(int attempts, Duration delay, Duration timeout) {
+		this(attempts, delay, null, timeout, null);
+	}
+
+	public RetryPolicy(int attempts, Duration delay) {
+		this(attempts, delay, null);
+	}
+
+	private boolean isRetryable(Throwable throwable) {
+		Code code = Futures.code(throwable);
+		return code == Code.UNAVAILABLE || code == Code.DEADLINE_EXCEEDED || code == Code.RESOURCE_EXHAUSTED;
+	}
+
+	long backoff(int attempt) {
+		long bound = delay;
+		for (int i = 1; i < attempt && bound < maxDelay; i++) {
+			bound = bound > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : 2 * bound;
+		}
+		bound = Math.min(bound, maxDelay);
+		return bound / 2 + ThreadLocalRandom.current().nextLong(bound / 2 + 1);
+	}
+
+	private <V> void attempt(Supplier<ApiFuture<V>> supplier, CompletableFuture<V> result, int attempt) {
+		calls.increment();
+		ApiFutures.addCallback(supplier.get(), new ApiFutureCallback<V>() {
+			@Override
+			public void onSuccess(V value) {
+				result.complete(value);
+			}
+
+			@Override
+			public void onFailure(Throwable throwable) {
+				if (result.isDone()) {
+					return;
+				}
+				if (attempt < attempts && isRetryable(throwable)) {
+					retries.increment();
+					CompletableFuture.delayedExecutor(backoff(attempt), TimeUnit.NANOSECONDS).execute(() -> {
+						if (!result.isDone()) {
+							attempt(supplier, result, attempt + 1);
+						}
+					});
+				} else {
+					result.completeExceptionally(new ExecutionFirestoreException(new ExecutionException(throwable)));
+				}
+			}
+		}, MoreExecutors.directExecutor());
+	}
+
+	<V> CompletableFuture<V> call(Supplier<ApiFuture<V>> supplier) {
+		if (attempts == 1 && timeout == 0) {
+			calls.increment();
+			return Futures.of(supplier.get());
+		}
+		CompletableFuture<V> result = new CompletableFuture<>();
+		attempt(supplier, result, 1);
+		if (timeout > 0 && !result.isDone()) {
+			CompletableFuture.delayedExecutor(timeout, TimeUnit.NANOSECONDS).execute(() -> {
+				TimeoutException exception = new TimeoutException("Operation did not complete in %d ms".formatted(TimeUnit.NANOSECONDS.toMillis(timeout)));
+				if (result.completeExceptionally(new ExecutionFirestoreException(new ExecutionException(exception)))) {
+					timeouts.increment();
+				}
+			});
+		}
+		return result;
+	}
+
+	<V> CompletableFuture<V> hedge(Supplier<ApiFuture<V>> supplier) {
+		CompletableFuture<V> primary = call(supplier);
+		if (hedge == 0 || primary.isDone()) {
+			return primary;
+		}
+		CompletableFuture<V> result = new CompletableFuture<>();
+		primary.whenComplete((value, exception) -> complete(result, value, exception));
+		CompletableFuture.delayedExecutor(hedge, TimeUnit.NANOSECONDS).execute(() -> {
+			if (!result.isDone()) {
+				hedges.increment();
+				call(supplier).whenComplete((value, exception) -> complete(result, value, exception));
+			}
+		});
+		return result;
+	}
+
+	private <V> void complete(CompletableFuture<V> result, V value, Throwable exception) {
+		if (exception == null) {
+			result.complete(value);
+		} else {
+			result.completeExceptionally(exception);
+		}
+	}
+
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	public long getRetries() {
+		return retries.sum();
+	}
+
+	public long getTimeouts() {
+		return timeouts.sum();
+	}
+
+	public long getHedges() {
+		return hedges.sum();
+	}
+}
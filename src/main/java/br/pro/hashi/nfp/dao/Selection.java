@@ -1,19 +1,35 @@
 package br.pro.hashi.nfp.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.Query.Direction;
 import com.google.cloud.firestore.QuerySnapshot;
 
-import br.pro.hashi.nfp.dao.exception.ExecutionFirestoreException;
-import br.pro.hashi.nfp.dao.exception.InterruptedFirestoreException;
-
 public class Selection {
+	private enum Operator {
+		EQUAL, NOT_EQUAL, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL, IN, NOT_IN
+	}
+
+	private record Filter(String name, Operator operator, Object value) {
+	}
+
+	private record Order(String name, boolean descending) {
+	}
+
 	private static final int NAME_LIMIT = 1500;
 	private static final String NAME_ALLOWED = "[_a-zA-Z][_a-zA-Z0-9]*";
+	private static final int PAGE_SIZE = 300;
 
 	static String clean(String name) {
 		if (name == null) {
@@ -43,85 +59,302 @@ public class Selection {
 		return name;
 	}
 
+	private final String path;
+	private final String keyName;
+	private final RetryPolicy retryPolicy;
+	private final List<Filter> filters;
+	private final List<Order> orders;
+	private final Set<String> ordered;
+	private Set<String> projection;
 	private Query query;
+	private int offset;
+	private int limit;
+	private boolean last;
+	private int size;
+	private boolean local;
+
+	Selection(CollectionReference collection, String keyName, RetryPolicy retryPolicy) {
+		this.path = collection.getPath();
+		this.keyName = keyName;
+		this.retryPolicy = retryPolicy;
+		this.filters = new ArrayList<>();
+		this.orders = new ArrayList<>();
+		this.ordered = new LinkedHashSet<>();
+		this.projection = null;
+		this.query = collection;
+		this.offset = 0;
+		this.limit = 0;
+		this.last = false;
+		this.size = PAGE_SIZE;
+		this.local = true;
+	}
+
+	private void filter(String name, Operator operator, Object value) {
+		Object normalized = Values.normalize(value);
+		if (normalized == Values.UNSUPPORTED || (normalized == null && operator != Operator.EQUAL && operator != Operator.NOT_EQUAL)) {
+			local = false;
+		} else {
+			filters.add(new Filter(name, operator, normalized));
+		}
+	}
+
+	private void filter(String name, Operator operator, List<?> values) {
+		List<Object> normalized = new ArrayList<>();
+		for (Object value : values) {
+			Object item = Values.normalize(value);
+			if (item == Values.UNSUPPORTED) {
+				local = false;
+				return;
+			}
+			normalized.add(item);
+		}
+		filters.add(new Filter(name, operator, normalized));
+	}
+
+	private boolean equal(Object a, Object b) {
+		return Values.rank(a) == Values.rank(b) && Values.compare(a, b) == 0;
+	}
+
+	private boolean matches(DocumentSnapshot document, Filter filter) {
+		if (!document.contains(filter.name())) {
+			return false;
+		}
+		Object value = Values.normalize(document.get(filter.name()));
+		Object operand = filter.value();
+		switch (filter.operator()) {
+		case EQUAL:
+			return equal(value, operand);
+		case NOT_EQUAL:
+			return value != null && !equal(value, operand);
+		case IN:
+			for (Object item : (List<?>) operand) {
+				if (equal(value, item)) {
+					return true;
+				}
+			}
+			return false;
+		case NOT_IN:
+			if (value == null) {
+				return false;
+			}
+			for (Object item : (List<?>) operand) {
+				if (equal(value, item)) {
+					return false;
+				}
+			}
+			return true;
+		default:
+			if (Values.rank(value) != Values.rank(operand)) {
+				return false;
+			}
+			int comparison = Values.compare(value, operand);
+			switch (filter.operator()) {
+			case LESS:
+				return comparison < 0;
+			case LESS_OR_EQUAL:
+				return comparison <= 0;
+			case GREATER:
+				return comparison > 0;
+			default:
+				return comparison >= 0;
+			}
+		}
+	}
+
+	private int compare(DocumentSnapshot a, DocumentSnapshot b, List<Order> orders) {
+		boolean descending = false;
+		for (Order order : orders) {
+			int comparison = Values.compare(Values.normalize(a.get(order.name())), Values.normalize(b.get(order.name())));
+			descending = order.descending();
+			if (comparison != 0) {
+				return descending ? -comparison : comparison;
+			}
+		}
+		int comparison = Values.compare(a.getId(), b.getId());
+		return descending ? -comparison : comparison;
+	}
+
+	private Query project(Query query) {
+		if (projection == null) {
+			return query;
+		}
+		Set<String> names = new LinkedHashSet<>(projection);
+		names.addAll(ordered);
+		return query.select(names.toArray(new String[0]));
+	}
 
-	Selection(Query query) {
-		this.query = query;
+	private Query build() {
+		return limit(project(query));
+	}
+
+	private Query limit(Query built) {
+		if (offset > 0) {
+			built = built.offset(offset);
+		}
+		if (limit > 0) {
+			if (last) {
+				built = built.limitToLast(limit);
+			} else {
+				built = built.limit(limit);
+			}
+		}
+		return built;
 	}
 
 	Firestore getFirestore() {
 		return query.getFirestore();
 	}
 
-	QuerySnapshot getDocuments() {
-		QuerySnapshot documents;
-		try {
-			documents = query.get().get();
-		} catch (ExecutionException exception) {
-			throw new ExecutionFirestoreException(exception);
-		} catch (InterruptedException exception) {
-			throw new InterruptedFirestoreException(exception);
+	CompletableFuture<QuerySnapshot> getDocuments() {
+		return retryPolicy.call(build()::get);
+	}
+
+	boolean isLocal(CollectionReference collection) {
+		return local && !(last && offset > 0) && path.equals(collection.getPath());
+	}
+
+	List<DocumentSnapshot> evaluate(Collection<DocumentSnapshot> documents) {
+		List<Order> orders = new ArrayList<>(this.orders);
+		if (orders.isEmpty()) {
+			for (Filter filter : filters) {
+				if (filter.operator() != Operator.EQUAL && filter.operator() != Operator.IN) {
+					orders.add(new Order(filter.name(), false));
+					break;
+				}
+			}
+		}
+		List<DocumentSnapshot> selected = new ArrayList<>();
+		for (DocumentSnapshot document : documents) {
+			boolean matched = true;
+			for (Filter filter : filters) {
+				if (!matches(document, filter)) {
+					matched = false;
+					break;
+				}
+			}
+			for (Order order : orders) {
+				if (!document.contains(order.name())) {
+					matched = false;
+					break;
+				}
+				if (Values.normalize(document.get(order.name())) == Values.UNSUPPORTED) {
+					return null;
+				}
+			}
+			if (matched) {
+				selected.add(document);
+			}
+		}
+		selected.sort((a, b) -> compare(a, b, orders));
+		int from = Math.min(offset, selected.size());
+		int to = selected.size();
+		if (limit > 0) {
+			if (last) {
+				from = Math.max(from, to - limit);
+			} else {
+				to = Math.min(to, from + limit);
+			}
+		}
+		return new ArrayList<>(selected.subList(from, to));
+	}
+
+	Iterator<DocumentSnapshot> iterate() {
+		if (last) {
+			return new Cursor(build(), retryPolicy);
+		}
+		return new Cursor(project(query), offset, limit, size, retryPolicy);
+	}
+
+	Iterator<DocumentSnapshot> scan(String name) {
+		Set<String> names = new LinkedHashSet<>(ordered);
+		if (name != null) {
+			names.add(name);
+		}
+		Query projected;
+		if (names.isEmpty()) {
+			projected = query.select(FieldPath.documentId());
+		} else {
+			projected = query.select(names.toArray(new String[0]));
 		}
-		return documents;
+		if (last) {
+			return new Cursor(limit(projected), retryPolicy);
+		}
+		return new Cursor(projected, offset, limit, size, retryPolicy);
 	}
 
 	public Selection whereEqualTo(String name, Object value) {
 		name = clean(name);
 		query = query.whereEqualTo(name, value);
+		filter(name, Operator.EQUAL, value);
 		return this;
 	}
 
 	public Selection whereNotEqualTo(String name, Object value) {
 		name = clean(name);
 		query = query.whereNotEqualTo(name, value);
+		filter(name, Operator.NOT_EQUAL, value);
+		ordered.add(name);
 		return this;
 	}
 
 	public Selection whereLessThan(String name, Object value) {
 		name = clean(name);
 		query = query.whereLessThan(name, value);
+		filter(name, Operator.LESS, value);
+		ordered.add(name);
 		return this;
 	}
 
 	public Selection whereLessThanOrEqualTo(String name, Object value) {
 		name = clean(name);
 		query = query.whereLessThanOrEqualTo(name, value);
+		filter(name, Operator.LESS_OR_EQUAL, value);
+		ordered.add(name);
 		return this;
 	}
 
 	public Selection whereGreaterThan(String name, Object value) {
 		name = clean(name);
 		query = query.whereGreaterThan(name, value);
+		filter(name, Operator.GREATER, value);
+		ordered.add(name);
 		return this;
 	}
 
 	public Selection whereGreaterThanOrEqualTo(String name, Object value) {
 		name = clean(name);
 		query = query.whereGreaterThanOrEqualTo(name, value);
+		filter(name, Operator.GREATER_OR_EQUAL, value);
+		ordered.add(name);
 		return this;
 	}
 
 	public Selection whereContains(String name, Object value) {
 		name = clean(name);
 		query = query.whereArrayContains(name, value);
+		local = false;
 		return this;
 	}
 
 	public Selection whereContainsAny(String name, List<?> values) {
 		name = clean(name, values);
 		query = query.whereArrayContainsAny(name, values);
+		local = false;
 		return this;
 	}
 
 	public Selection whereIn(String name, List<?> values) {
 		name = clean(name, values);
 		query = query.whereIn(name, values);
+		filter(name, Operator.IN, values);
 		return this;
 	}
 
 	public Selection whereNotIn(String name, List<?> values) {
 		name = clean(name, values);
 		query = query.whereNotIn(name, values);
+		filter(name, Operator.NOT_IN, values);
+		ordered.add(name);
 		return this;
 	}
 
@@ -132,6 +365,8 @@ public class Selection {
 		} else {
 			query = query.orderBy(name, Direction.ASCENDING);
 		}
+		orders.add(new Order(name, descending));
+		ordered.add(name);
 		return this;
 	}
 
@@ -139,11 +374,24 @@ public class Selection {
 		return orderBy(name, false);
 	}
 
+	public Selection select(String... names) {
+		if (names == null) {
+			throw new IllegalArgumentException("Field names cannot be null");
+		}
+		Set<String> projection = new LinkedHashSet<>();
+		projection.add(keyName);
+		for (String name : names) {
+			projection.add(clean(name));
+		}
+		this.projection = projection;
+		return this;
+	}
+
 	public Selection offset(int offset) {
 		if (offset < 1) {
 			throw new IllegalArgumentException("Offset must be positive");
 		}
-		query = query.offset(offset);
+		this.offset = offset;
 		return this;
 	}
 
@@ -151,7 +399,8 @@ public class Selection {
 		if (limit < 1) {
 			throw new IllegalArgumentException("Limit must be positive");
 		}
-		query = query.limit(limit);
+		this.limit = limit;
+		this.last = false;
 		return this;
 	}
 
@@ -159,7 +408,16 @@ public class Selection {
 		if (limit < 1) {
 			throw new IllegalArgumentException("Limit to last must be positive");
 		}
-		query = query.limitToLast(limit);
+		this.limit = limit;
+		this.last = true;
+		return this;
+	}
+
+	public Selection pageSize(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Page size must be positive");
+		}
+		this.size = size;
 		return this;
 	}
 }
@@ -0,0 +1,70 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.List;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Transaction;
+
+public class Session {
+	static final int ATTEMPTS = 5;
+
+	private final Firestore firestore;
+	private final Transaction transaction;
+	private final List<Runnable> callbacks;
+
+	Session(Firestore firestore, Transaction transaction, List<Runnable> callbacks) {
+		this.firestore = firestore;
+		this.transaction = transaction;
+		this.callbacks = callbacks;
+	}
+
+	Firestore getFirestore() {
+		return firestore;
+	}
+
+	Transaction getTransaction() {
+		return transaction;
+	}
+
+	void addCallback(Runnable callback) {
+		callbacks.add(callback);
+	}
+
+	private <T> void validate(DAO<T> dao) {
+		if (dao == null) {
+			throw new IllegalArgumentException("DAO cannot be null");
+		}
+	}
+
+	public <T> T retrieve(DAO<T> dao, Object rawKey, Class<? extends Adapter<T>> adapter) {
+		validate(dao);
+		return dao.retrieve(this, rawKey, adapter);
+	}
+
+	public <T> T retrieve(DAO<T> dao, Object rawKey) {
+		return retrieve(dao, rawKey, null);
+	}
+
+	public <T> void create(DAO<T> dao, T object, Class<? extends Adapter<T>> adapter) {
+		validate(dao);
+		dao.create(this, object, adapter);
+	}
+
+	public <T> void create(DAO<T> dao, T object) {
+		create(dao, object, null);
+	}
+
+	public <T> void update(DAO<T> dao, T object, Class<? extends Adapter<T>> adapter) {
+		validate(dao);
+		dao.update(this, object, adapter);
+	}
+
+	public <T> void update(DAO<T> dao, T object) {
+		update(dao, object, null);
+	}
+
+	public <T> void delete(DAO<T> dao, Object rawKey) {
+		validate(dao);
+		dao.delete(this, rawKey);
+	}
+}
@@ -1,18 +1,24 @@
 package br.pro.hashi.nfp.dao;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import br.pro.hashi.nfp.dao.annotation.Autokey;
 import br.pro.hashi.nfp.dao.annotation.File;
 import br.pro.hashi.nfp.dao.annotation.Key;
+import br.pro.hashi.nfp.dao.exception.AccessFirestoreException;
 import br.pro.hashi.nfp.dao.exception.BytecodeFirestoreException;
 import br.pro.hashi.nfp.dao.exception.SourceFirestoreException;
 import javassist.CannotCompileException;
@@ -20,31 +26,49 @@ import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtConstructor;
 import javassist.CtMethod;
+import javassist.LoaderClassPath;
 import javassist.NotFoundException;
 
 class Source {
+	private static final String PROXY_SUFFIX = "_Proxy";
+
+	private final Class<?> type;
 	private final String typeName;
+	private final MethodHandle constructor;
 	private final boolean auto;
-	private final Field keyField;
-	private final Map<String, Field> fileFields;
-	private final Map<String, Class<?>> types;
+	private final Property keyField;
+	private final Map<String, Property> fileFields;
+	private final Set<String> fieldNames;
+	private final Map<String, Property> fields;
+	private final Map<Class<?>, Mirror> mirrors;
+	private volatile Codec codec;
+	private volatile boolean compiled;
+	private ClassPool pool;
 
 	Source(Class<?> type) {
 		String typeName = type.getName();
 
+		MethodHandle constructor;
 		try {
-			type.getConstructor();
+			constructor = MethodHandles.lookup().unreflectConstructor(type.getConstructor()).asType(MethodType.methodType(Object.class));
 		} catch (NoSuchMethodException exception) {
 			throw new SourceFirestoreException("Class %s must have a public no-argument constructor".formatted(typeName));
+		} catch (IllegalAccessException exception) {
+			throw new AccessFirestoreException(exception);
 		}
 
 		boolean auto = false;
 		Field keyField = null;
 		Map<String, Field> fileFields = new HashMap<>();
+		Set<String> fieldNames = new HashSet<>();
+		Map<String, Property> fields = new HashMap<>();
 
 		for (Class<?> ancestor = type; !ancestor.equals(Object.class); ancestor = ancestor.getSuperclass()) {
 			for (Field field : ancestor.getDeclaredFields()) {
 				String name = field.getName();
+				if (fieldNames.add(name) && !Modifier.isStatic(field.getModifiers()) && field.trySetAccessible()) {
+					fields.put(name, new Property(field));
+				}
 				if (field.isAnnotationPresent(Key.class)) {
 					if (field.isAnnotationPresent(Autokey.class)) {
 						throw new SourceFirestoreException("Field %s of class %s cannot be both a key and an autokey".formatted(name, typeName));
@@ -81,7 +105,6 @@ class Source {
 						throw new SourceFirestoreException("File %s of class %s must be a string".formatted(name, typeName));
 					}
 					fileFields.put(name, field);
-					field.setAccessible(true);
 				}
 			}
 		}
@@ -89,56 +112,159 @@ class Source {
 		if (keyField == null) {
 			throw new SourceFirestoreException("Class %s must have either a key or an autokey".formatted(typeName));
 		}
-		keyField.setAccessible(true);
 
+		Map<String, Property> fileProperties = new HashMap<>();
+		for (String name : fileFields.keySet()) {
+			fileProperties.put(name, new Property(fileFields.get(name)));
+		}
+
+		this.type = type;
 		this.typeName = typeName;
+		this.constructor = constructor;
 		this.auto = auto;
-		this.keyField = keyField;
-		this.fileFields = fileFields;
-		this.types = new HashMap<>();
+		this.keyField = new Property(keyField);
+		this.fileFields = fileProperties;
+		this.fieldNames = fieldNames;
+		this.fields = fields;
+		this.mirrors = new ConcurrentHashMap<>();
+		this.codec = null;
+		this.compiled = false;
+		this.pool = null;
 	}
 
 	boolean isAuto() {
 		return auto;
 	}
 
-	Field getKeyField() {
+	Property getKeyField() {
 		return keyField;
 	}
 
-	Map<String, Field> getFileFields() {
+	Map<String, Property> getFileFields() {
 		return fileFields;
 	}
 
-	Class<?> compile(String adapterName) {
-		Class<?> type = types.get(adapterName);
-		if (type == null) {
-			ClassPool pool = ClassPool.getDefault();
+	boolean hasField(String name) {
+		return fieldNames.contains(name);
+	}
 
-			Lookup lookup = MethodHandles.lookup();
-			String packageName = lookup.lookupClass().getPackageName();
+	Property getField(String name) {
+		return fields.get(name);
+	}
 
-			CtClass ctObject, ctSuper, ctType, ctAdapter;
+	Codec getCodec() {
+		if (!compiled) {
+			synchronized (this) {
+				if (!compiled) {
+					codec = Codec.of(type);
+					compiled = true;
+				}
+			}
+		}
+		return codec;
+	}
+
+	Object instantiate() {
+		try {
+			return (Object) constructor.invokeExact();
+		} catch (RuntimeException exception) {
+			throw exception;
+		} catch (Error error) {
+			throw error;
+		} catch (Throwable throwable) {
+			throw new BytecodeFirestoreException(throwable);
+		}
+	}
+
+	Mirror compile(Class<?> adapter, Monitor monitor, String path) {
+		Mirror mirror = mirrors.get(adapter);
+		if (mirror == null) {
+			mirror = mirrors.computeIfAbsent(adapter, (key) -> {
+				long start = System.nanoTime();
+				Class<?> proxyType = load(adapter);
+				if (proxyType == null) {
+					Mirror generated = generate(adapter);
+					monitor.compilation(path, adapter, true, System.nanoTime() - start);
+					return generated;
+				}
+				Mirror loaded = new Mirror(proxyType, type, fields.keySet());
+				monitor.compilation(path, adapter, false, System.nanoTime() - start);
+				return loaded;
+			});
+		}
+		return mirror;
+	}
+
+	Mirror compile(Class<?> adapter) {
+		return compile(adapter, Monitor.NONE, null);
+	}
+
+	private Class<?> load(Class<?> adapter) {
+		Class<?> proxyType;
+		try {
+			proxyType = Class.forName("%s%s".formatted(adapter.getName(), PROXY_SUFFIX), true, adapter.getClassLoader());
+		} catch (ClassNotFoundException exception) {
+			return null;
+		}
+		if (!adapter.isAssignableFrom(proxyType)) {
+			return null;
+		}
+		try {
+			proxyType.getConstructor(type);
+		} catch (NoSuchMethodException exception) {
+			return null;
+		}
+		return proxyType;
+	}
+
+	private Mirror generate(Class<?> adapter) {
+		String adapterName = adapter.getName();
+		Lookup lookup = MethodHandles.lookup();
+		String packageName = lookup.lookupClass().getPackageName();
+		boolean hidden = Codec.isVisible(type) && Codec.isVisible(adapter);
+		String proxyPackageName;
+		if (hidden) {
+			proxyPackageName = packageName;
+		} else {
+			proxyPackageName = adapter.getPackageName();
+		}
 
+		byte[] bytecode;
+
+		synchronized (this) {
+			if (pool == null) {
+				pool = Codec.pool(type);
+			}
+
+			CtClass ctObject, ctSuper, ctType, ctAdapter;
 			try {
 				ctObject = pool.get("java.lang.Object");
 				ctSuper = pool.get("%s.Adapter".formatted(packageName));
 				ctType = pool.get(typeName);
-				ctAdapter = pool.get(adapterName);
-				for (CtClass ancestor = ctAdapter; !ancestor.equals(ctSuper); ancestor = ancestor.getSuperclass()) {
-					if (ancestor.getDeclaredFields().length > 0) {
-						throw new SourceFirestoreException("Class %s cannot have fields".formatted(adapterName));
-					}
+				if (adapter.getClassLoader() != type.getClassLoader()) {
+					pool.appendClassPath(new LoaderClassPath(adapter.getClassLoader()));
 				}
+				ctAdapter = pool.get(adapterName);
 			} catch (NotFoundException exception) {
 				throw new BytecodeFirestoreException(exception);
 			}
 
 			String uuid = UUID.randomUUID().toString().replace("-", "");
-			String proxyName = "%s.Proxy%s".formatted(packageName, uuid);
+			String proxyName;
+			if (proxyPackageName.isEmpty()) {
+				proxyName = "Proxy%s".formatted(uuid);
+			} else {
+				proxyName = "%s.Proxy%s".formatted(proxyPackageName, uuid);
+			}
+			CtClass ctProxy = pool.makeClass(proxyName);
 
 			try {
-				CtClass ctProxy = pool.makeClass(proxyName);
+				for (CtClass ancestor = ctAdapter; !ancestor.equals(ctSuper); ancestor = ancestor.getSuperclass()) {
+					if (ancestor.getDeclaredFields().length > 0) {
+						throw new SourceFirestoreException("Class %s cannot have fields".formatted(adapterName));
+					}
+				}
+
 				ctProxy.setModifiers(Modifier.PUBLIC);
 				ctProxy.setSuperclass(ctSuper);
 
@@ -184,14 +310,54 @@ class Source {
 					}
 				}
 
-				type = ctProxy.toClass(lookup);
+				bytecode = ctProxy.toBytecode();
 			} catch (CannotCompileException exception) {
 				throw new BytecodeFirestoreException(exception);
 			} catch (NotFoundException exception) {
 				throw new BytecodeFirestoreException(exception);
+			} catch (IOException exception) {
+				throw new BytecodeFirestoreException(exception);
+			} finally {
+				ctProxy.detach();
+				ctAdapter.detach();
+			}
+		}
+
+		Class<?> proxyType;
+		try {
+			if (hidden) {
+				proxyType = lookup.defineHiddenClass(bytecode, true).lookupClass();
+			} else {
+				proxyType = MethodHandles.privateLookupIn(adapter, lookup).defineClass(bytecode);
 			}
-			types.put(adapterName, type);
+		} catch (IllegalAccessException exception) {
+			throw new AccessFirestoreException(exception);
 		}
+		return new Mirror(proxyType, type, fields.keySet());
+	}
+
+	Set<Class<?>> getProxyTypes() {
+		Set<Class<?>> proxyTypes = new HashSet<>();
+		for (Mirror mirror : mirrors.values()) {
+			proxyTypes.add(mirror.getType());
+		}
+		return proxyTypes;
+	}
+
+	Set<Class<?>> evict(ClassLoader loader) {
+		Set<Class<?>> proxyTypes = new HashSet<>();
+		Iterator<Map.Entry<Class<?>, Mirror>> iterator = mirrors.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Class<?>, Mirror> entry = iterator.next();
+			if (entry.getKey().getClassLoader() == loader) {
+				iterator.remove();
+				proxyTypes.add(entry.getValue().getType());
+			}
+		}
+		return proxyTypes;
+	}
+
+	Class<?> getType() {
 		return type;
 	}
 }
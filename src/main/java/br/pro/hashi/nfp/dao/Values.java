@@ -0,0 +1,100 @@
+package br.pro.hashi.nfp.dao;
+
+import java.util.Date;
+
+import com.google.cloud.Timestamp;
+
+final class Values {
+	static final Object UNSUPPORTED = new Object();
+
+	static Object normalize(Object value) {
+		if (value == null || value instanceof Boolean || value instanceof String || value instanceof Timestamp) {
+			return value;
+		}
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).longValue();
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return ((Number) value).doubleValue();
+		}
+		if (value instanceof Date) {
+			return Timestamp.of((Date) value);
+		}
+		if (value instanceof Enum) {
+			return ((Enum<?>) value).name();
+		}
+		return UNSUPPORTED;
+	}
+
+	static int rank(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof Boolean) {
+			return 1;
+		}
+		if (value instanceof Number) {
+			return 2;
+		}
+		if (value instanceof Timestamp) {
+			return 3;
+		}
+		if (value instanceof String) {
+			return 4;
+		}
+		return 5;
+	}
+
+	private static int compare(Number a, Number b) {
+		if (a instanceof Long && b instanceof Long) {
+			return Long.compare((Long) a, (Long) b);
+		}
+		double x = a.doubleValue();
+		double y = b.doubleValue();
+		if (Double.isNaN(x)) {
+			return Double.isNaN(y) ? 0 : -1;
+		}
+		if (Double.isNaN(y)) {
+			return 1;
+		}
+		return Double.compare(x == 0 ? 0.0 : x, y == 0 ? 0.0 : y);
+	}
+
+	private static int compare(String a, String b) {
+		int i = 0;
+		int j = 0;
+		while (i < a.length() && j < b.length()) {
+			int x = a.codePointAt(i);
+			int y = b.codePointAt(j);
+			if (x != y) {
+				return Integer.compare(x, y);
+			}
+			i += Character.charCount(x);
+			j += Character.charCount(y);
+		}
+		return Integer.compare(a.length() - i, b.length() - j);
+	}
+
+	static int compare(Object a, Object b) {
+		int rankA = rank(a);
+		int rankB = rank(b);
+		if (rankA != rankB) {
+			return Integer.compare(rankA, rankB);
+		}
+		switch (rankA) {
+		case 1:
+			return Boolean.compare((Boolean) a, (Boolean) b);
+		case 2:
+			return compare((Number) a, (Number) b);
+		case 3:
+			return ((Timestamp) a).compareTo((Timestamp) b);
+		case 4:
+			return compare((String) a, (String) b);
+		default:
+			return 0;
+		}
+	}
+
+	private Values() {
+	}
+}
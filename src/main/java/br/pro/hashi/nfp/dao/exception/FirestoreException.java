@@ -3,7 +3,7 @@ package br.pro.hashi.nfp.dao.exception;
 public abstract class FirestoreException extends FirebaseException {
 	private static final long serialVersionUID = -2427529033998002790L;
 
-	protected FirestoreException(String prefix, Exception exception) {
+	protected FirestoreException(String prefix, Throwable exception) {
 		super("%s: %s".formatted(prefix, exception.getMessage()));
 	}
 
@@ -0,0 +1,220 @@
+package br.pro.hashi.nfp.dao.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+
+@SupportedAnnotationTypes("*")
+public class ProxyProcessor extends AbstractProcessor {
+	private static final String ADAPTER_NAME = "br.pro.hashi.nfp.dao.Adapter";
+	private static final String PROXY_SUFFIX = "_Proxy";
+
+	private final Set<String> generated = new HashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement element : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			process(element);
+		}
+		return false;
+	}
+
+	private void process(TypeElement element) {
+		for (TypeElement member : ElementFilter.typesIn(element.getEnclosedElements())) {
+			if (element.getModifiers().contains(Modifier.PUBLIC)) {
+				process(member);
+			}
+		}
+		if (element.getKind() != ElementKind.CLASS) {
+			return;
+		}
+		Set<Modifier> modifiers = element.getModifiers();
+		if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.FINAL)) {
+			return;
+		}
+		if (element.getNestingKind() != NestingKind.TOP_LEVEL && !modifiers.contains(Modifier.STATIC)) {
+			return;
+		}
+		DeclaredType thatType = findThatType(element.asType());
+		if (thatType == null) {
+			return;
+		}
+		if (!hasNoFields(element) || !hasNoArgumentConstructor(element)) {
+			return;
+		}
+		Elements elements = processingEnv.getElementUtils();
+		String binaryName = elements.getBinaryName(element).toString();
+		if (generated.add(binaryName)) {
+			try {
+				generate(element, thatType, binaryName);
+			} catch (IOException exception) {
+				processingEnv.getMessager().printMessage(Kind.WARNING, "Could not generate proxy for %s: %s".formatted(binaryName, exception.getMessage()), element);
+			}
+		}
+	}
+
+	private DeclaredType findThatType(TypeMirror type) {
+		Types types = processingEnv.getTypeUtils();
+		for (TypeMirror supertype : types.directSupertypes(type)) {
+			if (supertype.getKind() != TypeKind.DECLARED) {
+				continue;
+			}
+			DeclaredType declared = (DeclaredType) supertype;
+			TypeElement supertypeElement = (TypeElement) declared.asElement();
+			if (supertypeElement.getQualifiedName().contentEquals(ADAPTER_NAME)) {
+				List<? extends TypeMirror> arguments = declared.getTypeArguments();
+				if (arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED) {
+					return (DeclaredType) arguments.get(0);
+				}
+				return null;
+			}
+			if (supertypeElement.getKind() == ElementKind.CLASS) {
+				return findThatType(supertype);
+			}
+		}
+		return null;
+	}
+
+	private boolean hasNoFields(TypeElement element) {
+		Elements elements = processingEnv.getElementUtils();
+		for (TypeElement ancestor = element; !ancestor.getQualifiedName().contentEquals(ADAPTER_NAME); ancestor = (TypeElement) ((DeclaredType) ancestor.getSuperclass()).asElement()) {
+			if (!ElementFilter.fieldsIn(ancestor.getEnclosedElements()).isEmpty()) {
+				return false;
+			}
+		}
+		return elements.getTypeElement(ADAPTER_NAME) != null;
+	}
+
+	private boolean hasNoArgumentConstructor(TypeElement element) {
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Set<String> adapterMethodNames(TypeElement element) {
+		Elements elements = processingEnv.getElementUtils();
+		Set<String> names = new HashSet<>();
+		for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(element))) {
+			TypeElement declaring = (TypeElement) method.getEnclosingElement();
+			if (method.getModifiers().contains(Modifier.PUBLIC) && !declaring.getQualifiedName().contentEquals("java.lang.Object")) {
+				names.add(method.getSimpleName().toString());
+			}
+		}
+		return names;
+	}
+
+	private String typeParameters(ExecutableElement method) {
+		List<? extends TypeParameterElement> parameters = method.getTypeParameters();
+		if (parameters.isEmpty()) {
+			return "";
+		}
+		StringJoiner joiner = new StringJoiner(", ", "<", "> ");
+		for (TypeParameterElement parameter : parameters) {
+			StringJoiner bounds = new StringJoiner(" & ");
+			for (TypeMirror bound : parameter.getBounds()) {
+				bounds.add(bound.toString());
+			}
+			joiner.add("%s extends %s".formatted(parameter.getSimpleName(), bounds));
+		}
+		return joiner.toString();
+	}
+
+	private void generate(TypeElement element, DeclaredType thatType, String binaryName) throws IOException {
+		Elements elements = processingEnv.getElementUtils();
+		Types types = processingEnv.getTypeUtils();
+
+		PackageElement packageElement = elements.getPackageOf(element);
+		String packageName = packageElement.getQualifiedName().toString();
+		String simpleName = binaryName.substring(binaryName.lastIndexOf('.') + 1) + PROXY_SUFFIX;
+		String proxyName = packageName.isEmpty() ? simpleName : "%s.%s".formatted(packageName, simpleName);
+
+		String adapterName = element.getQualifiedName().toString();
+		TypeElement thatElement = (TypeElement) thatType.asElement();
+		String thatName = thatType.toString();
+
+		Set<String> names = adapterMethodNames(element);
+
+		try (PrintWriter writer = new PrintWriter(processingEnv.getFiler().createSourceFile(proxyName, element).openWriter())) {
+			if (!packageName.isEmpty()) {
+				writer.println("package %s;".formatted(packageName));
+				writer.println();
+			}
+			writer.println("@SuppressWarnings({ \"unchecked\", \"rawtypes\", \"cast\" })");
+			writer.println("public final class %s extends %s {".formatted(simpleName, adapterName));
+			writer.println("\tpublic %s() {".formatted(simpleName));
+			writer.println("\t\tthis.that = new %s();".formatted(thatName));
+			writer.println("\t}");
+			writer.println();
+			writer.println("\tpublic %s(%s that) {".formatted(simpleName, thatName));
+			writer.println("\t\tthis.that = that;");
+			writer.println("\t}");
+
+			for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(thatElement))) {
+				Set<Modifier> modifiers = method.getModifiers();
+				TypeElement declaring = (TypeElement) method.getEnclosingElement();
+				String methodName = method.getSimpleName().toString();
+				if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) || declaring.getQualifiedName().contentEquals("java.lang.Object") || names.contains(methodName)) {
+					continue;
+				}
+				ExecutableType methodType = (ExecutableType) types.asMemberOf(thatType, method);
+				List<? extends VariableElement> parameters = method.getParameters();
+				List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+				StringJoiner declarations = new StringJoiner(", ");
+				StringJoiner arguments = new StringJoiner(", ");
+				for (int i = 0; i < parameters.size(); i++) {
+					String parameterName = parameters.get(i).getSimpleName().toString();
+					declarations.add("%s %s".formatted(parameterTypes.get(i), parameterName));
+					arguments.add(parameterName);
+				}
+				StringJoiner thrown = new StringJoiner(", ", " throws ", "");
+				thrown.setEmptyValue("");
+				for (TypeMirror thrownType : methodType.getThrownTypes()) {
+					thrown.add(thrownType.toString());
+				}
+				TypeMirror returnType = methodType.getReturnType();
+				writer.println();
+				writer.println("\tpublic %s%s %s(%s)%s {".formatted(typeParameters(method), returnType, methodName, declarations, thrown));
+				if (returnType.getKind() == TypeKind.VOID) {
+					writer.println("\t\t((%s) that).%s(%s);".formatted(thatName, methodName, arguments));
+				} else {
+					writer.println("\t\treturn ((%s) that).%s(%s);".formatted(thatName, methodName, arguments));
+				}
+				writer.println("\t}");
+			}
+
+			writer.println("}");
+		}
+	}
+}
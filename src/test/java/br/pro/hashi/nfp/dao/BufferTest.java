@@ -0,0 +1,124 @@
+package br.pro.hashi.nfp.dao;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.cloud.firestore.FieldValue;
+
+class BufferTest {
+	private static final Duration INTERVAL = Duration.ofHours(1);
+
+	private DAO<Object> dao;
+	private List<Map<String, Map<String, Object>>> flushes;
+	private Map<String, RuntimeException> failures;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		dao = mock(DAO.class);
+		flushes = new ArrayList<>();
+		failures = new HashMap<>();
+		when(dao.prepare(any(), any())).thenAnswer(invocation -> {
+			Map<String, Object> values = invocation.getArgument(0);
+			return values.get("key");
+		});
+		when(dao.update(anyList(), anyList())).thenAnswer(invocation -> {
+			List<String> keys = invocation.getArgument(0);
+			List<Map<String, Object>> values = invocation.getArgument(1);
+			Map<String, Map<String, Object>> flush = new HashMap<>();
+			Report report = new Report();
+			for (int i = 0; i < keys.size(); i++) {
+				flush.put(keys.get(i), values.get(i));
+				int index = report.add();
+				report.setKey(index, keys.get(i));
+				report.setException(index, failures.get(keys.get(i)));
+			}
+			flushes.add(flush);
+			return report;
+		});
+	}
+
+	@Test
+	void updateMergesFieldsOfSameKey() {
+		try (Buffer<Object> buffer = new Buffer<>(dao, 10, INTERVAL)) {
+			buffer.update(Map.of("key", "a", "x", 1));
+			buffer.update(Map.of("key", "a", "y", 2));
+			buffer.update(Map.of("key", "a", "x", 3));
+			assertEquals(1, buffer.size());
+			Report report = buffer.flush();
+			assertEquals(1, report.size());
+			assertEquals(List.of(Map.of("a", Map.of("key", "a", "x", 3, "y", 2))), flushes);
+		}
+	}
+
+	@Test
+	void updateFlushesBeforeConflictingTransform() {
+		FieldValue first = FieldValue.increment(1);
+		FieldValue second = FieldValue.increment(1);
+		try (Buffer<Object> buffer = new Buffer<>(dao, 10, INTERVAL)) {
+			buffer.update(Map.of("key", "a", "n", first));
+			buffer.update(Map.of("key", "b", "n", 1));
+			Report report = buffer.update(Map.of("key", "a", "n", second));
+			assertEquals(2, report.size());
+			assertEquals(1, flushes.size());
+			assertSame(first, flushes.get(0).get("a").get("n"));
+			assertEquals(1, buffer.size());
+		}
+		assertEquals(2, flushes.size());
+		assertSame(second, flushes.get(1).get("a").get("n"));
+	}
+
+	@Test
+	void updateFlushesAtCapacity() {
+		try (Buffer<Object> buffer = new Buffer<>(dao, 2, INTERVAL)) {
+			assertEquals(0, buffer.update(Map.of("key", "a", "x", 1)).size());
+			Report report = buffer.update(Map.of("key", "b", "x", 1));
+			assertEquals(2, report.size());
+			assertEquals(0, buffer.size());
+		}
+		assertEquals(1, flushes.size());
+	}
+
+	@Test
+	void flushSkipsEmptyBuffer() {
+		try (Buffer<Object> buffer = new Buffer<>(dao, 10, INTERVAL)) {
+			assertEquals(0, buffer.flush().size());
+		}
+		assertTrue(flushes.isEmpty());
+	}
+
+	@Test
+	void closeThrowsFirstFailureAndSuppressesOthers() {
+		RuntimeException a = new RuntimeException("a");
+		RuntimeException b = new RuntimeException("b");
+		failures.put("a", a);
+		failures.put("b", b);
+		failures.put("c", a);
+		Buffer<Object> buffer = new Buffer<>(dao, 10, INTERVAL);
+		buffer.update(Map.of("key", "a", "x", 1));
+		buffer.update(Map.of("key", "b", "x", 1));
+		buffer.update(Map.of("key", "c", "x", 1));
+		buffer.update(Map.of("key", "d", "x", 1));
+		RuntimeException exception = assertThrows(RuntimeException.class, buffer::close);
+		RuntimeException other = exception == a ? b : a;
+		assertArrayEquals(new Throwable[] { other }, exception.getSuppressed());
+		assertTrue(buffer.isClosed());
+		assertThrows(IllegalStateException.class, () -> buffer.update(Map.of("key", "a")));
+	}
+}
@@ -0,0 +1,133 @@
+package br.pro.hashi.nfp.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+class CacheTest {
+	private static final String PATH = "items";
+
+	private DocumentSnapshot put(Cache cache, String key) {
+		DocumentSnapshot document = mock(DocumentSnapshot.class);
+		cache.put(PATH, key, document, cache.stamp());
+		return document;
+	}
+
+	@Test
+	void getReturnsPutDocument() {
+		Cache cache = new Cache(2);
+		DocumentSnapshot document = put(cache, "a");
+		assertSame(document, cache.get(PATH, "a"));
+		assertNull(cache.get(PATH, "b"));
+		assertNull(cache.get("other", "a"));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	void putEvictsLeastRecentlyUsed() {
+		Cache cache = new Cache(2);
+		DocumentSnapshot a = put(cache, "a");
+		put(cache, "b");
+		cache.get(PATH, "a");
+		DocumentSnapshot c = put(cache, "c");
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertSame(a, cache.get(PATH, "a"));
+		assertNull(cache.get(PATH, "b"));
+		assertSame(c, cache.get(PATH, "c"));
+	}
+
+	@Test
+	void putEvictsByWeight() {
+		Cache cache = new Cache(5, null, document -> 2);
+		put(cache, "a");
+		put(cache, "b");
+		put(cache, "c");
+		assertEquals(2, cache.size());
+		assertEquals(4, cache.getWeight());
+		assertNull(cache.get(PATH, "a"));
+	}
+
+	@Test
+	void putIgnoresHeavierThanCapacity() {
+		Cache cache = new Cache(1, null, document -> 2);
+		put(cache, "a");
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getEvictions());
+	}
+
+	@Test
+	void putRejectsNegativeWeight() {
+		Cache cache = new Cache(1, null, document -> -1);
+		assertThrows(IllegalStateException.class, () -> put(cache, "a"));
+	}
+
+	@Test
+	void putReplacesWithoutDoubleCounting() {
+		Cache cache = new Cache(2);
+		put(cache, "a");
+		DocumentSnapshot document = put(cache, "a");
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getWeight());
+		assertSame(document, cache.get(PATH, "a"));
+	}
+
+	@Test
+	void invalidateDropsStalePut() {
+		Cache cache = new Cache(2);
+		long stamp = cache.stamp();
+		cache.invalidate(PATH, "a");
+		cache.put(PATH, "a", mock(DocumentSnapshot.class), stamp);
+		assertNull(cache.get(PATH, "a"));
+		put(cache, "a");
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void invalidateRemovesDocument() {
+		Cache cache = new Cache(2);
+		put(cache, "a");
+		DocumentSnapshot b = put(cache, "b");
+		cache.invalidate(PATH, "a");
+		assertNull(cache.get(PATH, "a"));
+		assertSame(b, cache.get(PATH, "b"));
+		assertEquals(1, cache.getWeight());
+	}
+
+	@Test
+	void clearDropsStalePut() {
+		Cache cache = new Cache(2);
+		put(cache, "a");
+		long stamp = cache.stamp();
+		cache.clear();
+		cache.put(PATH, "b", mock(DocumentSnapshot.class), stamp);
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	void getExpiresAfterTtl() throws InterruptedException {
+		Cache cache = new Cache(2, Duration.ofMillis(1));
+		put(cache, "a");
+		Thread.sleep(10);
+		assertNull(cache.get(PATH, "a"));
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	void constructorValidates() {
+		assertThrows(IllegalArgumentException.class, () -> new Cache(0));
+		assertThrows(IllegalArgumentException.class, () -> new Cache(1, Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> new Cache(1, null, null));
+	}
+}
@@ -0,0 +1,79 @@
+package br.pro.hashi.nfp.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class CodecTest {
+	public static class PrivateSetter {
+		private String name;
+
+		public String getName() {
+			return name;
+		}
+
+		private void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	public static class BackedGetter {
+		private String key;
+		private int total;
+
+		public String getKey() {
+			return key;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+	}
+
+	public static class Plain {
+		private String key;
+		private int total;
+		public boolean active;
+
+		public String getKey() {
+			return key;
+		}
+
+		public void setKey(String key) {
+			this.key = key;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+
+		public void setTotal(int total) {
+			this.total = total;
+		}
+	}
+
+	@Test
+	void privateSetterHasNoCodec() {
+		assertNull(Codec.of(PrivateSetter.class));
+	}
+
+	@Test
+	void backedGetterHasNoCodec() {
+		assertNull(Codec.of(BackedGetter.class));
+	}
+
+	@Test
+	void plainRoundTrips() {
+		Codec codec = Codec.of(Plain.class);
+		assertNotNull(codec);
+		Plain plain = (Plain) codec.decode(Map.of("key", "k2", "total", 7L, "active", true));
+		assertEquals("k2", plain.getKey());
+		assertEquals(7, plain.getTotal());
+		assertEquals(true, plain.active);
+		assertEquals(Map.of("key", "k2", "total", 7, "active", true), codec.encode(plain));
+	}
+}
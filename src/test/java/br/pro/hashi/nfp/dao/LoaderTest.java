@@ -0,0 +1,185 @@
+package br.pro.hashi.nfp.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.pro.hashi.nfp.dao.annotation.Key;
+
+public class LoaderTest {
+	public static class Toy {
+		@Key
+		private String key;
+		private String name;
+
+		public String getKey() {
+			return key;
+		}
+
+		public void setKey(String key) {
+			this.key = key;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	private static final String PET = """
+			package app;
+
+			import br.pro.hashi.nfp.dao.annotation.Key;
+
+			public class Pet {
+				@Key
+				private String key;
+				private String name;
+
+				public String getKey() {
+					return key;
+				}
+
+				public void setKey(String key) {
+					this.key = key;
+				}
+
+				public String getName() {
+					return name;
+				}
+
+				public void setName(String name) {
+					this.name = name;
+				}
+			}
+			""";
+
+	private static final String PET_ADAPTER = """
+			package app;
+
+			import br.pro.hashi.nfp.dao.Adapter;
+
+			public class PetAdapter extends Adapter<Pet> {
+				public String getName() {
+					return that.getName().toUpperCase();
+				}
+
+				public void setName(String name) {
+					that.setName(name.toLowerCase());
+				}
+			}
+			""";
+
+	private static final String TOY_ADAPTER = """
+			package app;
+
+			import br.pro.hashi.nfp.dao.Adapter;
+			import br.pro.hashi.nfp.dao.LoaderTest.Toy;
+
+			public class ToyAdapter extends Adapter<Toy> {
+				public String getName() {
+					return that.getName().toUpperCase();
+				}
+
+				public void setName(String name) {
+					that.setName(name.toLowerCase());
+				}
+			}
+			""";
+
+	@TempDir
+	static Path directory;
+
+	static URLClassLoader loader;
+	static Class<?> petType;
+	static Class<?> adapterType;
+
+	@BeforeAll
+	static void setUp() throws IOException, ClassNotFoundException {
+		Path sources = Files.createDirectories(directory.resolve("app"));
+		Path pet = Files.writeString(sources.resolve("Pet.java"), PET);
+		Path adapter = Files.writeString(sources.resolve("PetAdapter.java"), PET_ADAPTER);
+		Path toyAdapter = Files.writeString(sources.resolve("ToyAdapter.java"), TOY_ADAPTER);
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		int status = compiler.run(null, null, null, "-proc:none", "-cp", System.getProperty("java.class.path"), "-d", directory.toString(), pet.toString(), adapter.toString(), toyAdapter.toString());
+		assertEquals(0, status);
+		loader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, LoaderTest.class.getClassLoader());
+		petType = loader.loadClass("app.Pet");
+		adapterType = loader.loadClass("app.PetAdapter");
+	}
+
+	@AfterAll
+	static void tearDown() throws IOException {
+		Codec.remove(loader);
+		loader.close();
+	}
+
+	@Test
+	void codecEncodesAndDecodes() throws ReflectiveOperationException {
+		Codec codec = Codec.of(petType);
+		assertNotNull(codec);
+		Object pet = codec.decode(Map.of("key", "k", "name", "rex"));
+		assertEquals("rex", petType.getMethod("getName").invoke(pet));
+		assertEquals(Map.of("key", "k", "name", "rex"), codec.encode(pet));
+	}
+
+	@Test
+	void proxyDelegatesAndAdapts() throws ReflectiveOperationException {
+		Source source = new Source(petType);
+		Mirror mirror = source.compile(adapterType);
+		Object pet = petType.getConstructor().newInstance();
+		petType.getMethod("setKey", String.class).invoke(pet, "k");
+		petType.getMethod("setName", String.class).invoke(pet, "rex");
+		Object proxy = mirror.wrap(pet);
+		assertEquals("REX", mirror.getGetter("name").get(proxy));
+		assertEquals("k", proxy.getClass().getMethod("getKey").invoke(proxy));
+		assertEquals(List.of(pet), List.of(mirror.unwrap(proxy)));
+		Codec codec = mirror.getCodec();
+		assertNotNull(codec);
+		assertEquals(Map.of("key", "k", "name", "REX"), codec.encode(proxy));
+		Object decoded = mirror.unwrap(codec.decode(Map.of("key", "j", "name", "FIDO")));
+		assertEquals("fido", petType.getMethod("getName").invoke(decoded));
+	}
+
+	@Test
+	void evictDropsAdaptersOfRedeployedLoader() throws IOException, ClassNotFoundException {
+		FirebaseManager manager = new FirebaseManager();
+		Source source = manager.reflect(Toy.class);
+		URL[] urls = new URL[] { directory.toUri().toURL() };
+		try (URLClassLoader first = new URLClassLoader(urls, LoaderTest.class.getClassLoader()); URLClassLoader second = new URLClassLoader(urls, LoaderTest.class.getClassLoader())) {
+			Class<?> firstAdapter = first.loadClass("app.ToyAdapter");
+			Class<?> secondAdapter = second.loadClass("app.ToyAdapter");
+			Mirror firstMirror = source.compile(firstAdapter);
+			assertSame(firstMirror, source.compile(firstAdapter));
+			Mirror secondMirror = source.compile(secondAdapter);
+			assertNotSame(firstMirror, secondMirror);
+			assertSame(second, secondMirror.getType().getClassLoader());
+			manager.evict(first);
+			assertEquals(Set.of(secondMirror.getType()), source.getProxyTypes());
+			manager.evict(second);
+			assertTrue(source.getProxyTypes().isEmpty());
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package br.pro.hashi.nfp.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+
+import br.pro.hashi.nfp.dao.exception.ExecutionFirestoreException;
+import io.grpc.Status;
+
+class RetryPolicyTest {
+	private static final Duration DELAY = Duration.ofMillis(1);
+
+	private static <V> ApiFuture<V> failed(Status.Code code) {
+		return ApiFutures.immediateFailedFuture(ApiExceptionFactory.createException(new RuntimeException(code.name()), GrpcStatusCode.of(code), false));
+	}
+
+	private static Supplier<ApiFuture<String>> failing(Status.Code code, int failures, AtomicInteger calls) {
+		return () -> {
+			if (calls.incrementAndGet() <= failures) {
+				return failed(code);
+			}
+			return ApiFutures.immediateFuture("ok");
+		};
+	}
+
+	private static ExecutionFirestoreException failure(CompletableFuture<?> future) {
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+		return assertInstanceOf(ExecutionFirestoreException.class, exception.getCause());
+	}
+
+	@Test
+	void callRetriesRetryableFailures() throws Exception {
+		Status.Code[] codes = { Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED };
+		for (Status.Code code : codes) {
+			RetryPolicy policy = new RetryPolicy(3, DELAY);
+			AtomicInteger calls = new AtomicInteger();
+			assertEquals("ok", policy.call(failing(code, 2, calls)).get(1, TimeUnit.SECONDS), code.name());
+			assertEquals(3, calls.get(), code.name());
+			assertEquals(3, policy.getCalls(), code.name());
+			assertEquals(2, policy.getRetries(), code.name());
+		}
+	}
+
+	@Test
+	void callStopsAfterAttempts() {
+		RetryPolicy policy = new RetryPolicy(3, DELAY);
+		AtomicInteger calls = new AtomicInteger();
+		failure(policy.call(failing(Status.Code.UNAVAILABLE, Integer.MAX_VALUE, calls)));
+		assertEquals(3, calls.get());
+		assertEquals(2, policy.getRetries());
+	}
+
+	@Test
+	void callDoesNotRetryOtherFailures() {
+		Status.Code[] codes = { Status.Code.NOT_FOUND, Status.Code.ALREADY_EXISTS, Status.Code.ABORTED, Status.Code.INVALID_ARGUMENT };
+		for (Status.Code code : codes) {
+			RetryPolicy policy = new RetryPolicy(3, DELAY);
+			AtomicInteger calls = new AtomicInteger();
+			failure(policy.call(failing(code, 1, calls)));
+			assertEquals(1, calls.get(), code.name());
+			assertEquals(0, policy.getRetries(), code.name());
+		}
+	}
+
+	@Test
+	void backoffDoublesWithJitterUpToMaximum() {
+		RetryPolicy policy = new RetryPolicy(10, Duration.ofNanos(1000), Duration.ofNanos(5000), null, null);
+		long[] bounds = { 1000, 2000, 4000, 5000, 5000 };
+		for (int i = 0; i < 100; i++) {
+			for (int attempt = 1; attempt <= bounds.length; attempt++) {
+				long bound = bounds[attempt - 1];
+				long backoff = policy.backoff(attempt);
+				assertTrue(backoff >= bound / 2 && backoff <= bound, "attempt %d waited %d".formatted(attempt, backoff));
+			}
+		}
+	}
+
+	@Test
+	void backoffDoesNotOverflow() {
+		RetryPolicy policy = new RetryPolicy(100, Duration.ofDays(1));
+		assertTrue(policy.backoff(100) > 0);
+	}
+
+	@Test
+	void callTimesOut() {
+		RetryPolicy policy = new RetryPolicy(1, null, Duration.ofMillis(10));
+		ExecutionFirestoreException exception = failure(policy.call(SettableApiFuture::create));
+		assertTrue(exception.getMessage().contains("did not complete"));
+		assertEquals(1, policy.getTimeouts());
+	}
+
+	@Test
+	void hedgeAnswersFromSecondCall() throws Exception {
+		RetryPolicy policy = new RetryPolicy(1, null, null, null, Duration.ofMillis(10));
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<ApiFuture<String>> supplier = () -> {
+			if (calls.incrementAndGet() == 1) {
+				return SettableApiFuture.create();
+			}
+			return ApiFutures.immediateFuture("ok");
+		};
+		assertEquals("ok", policy.hedge(supplier).get(1, TimeUnit.SECONDS));
+		assertEquals(2, policy.getCalls());
+		assertEquals(1, policy.getHedges());
+	}
+
+	@Test
+	void hedgeSkipsFastCall() throws Exception {
+		RetryPolicy policy = new RetryPolicy(1, null, null, null, Duration.ofMillis(10));
+		AtomicInteger calls = new AtomicInteger();
+		assertEquals("ok", policy.hedge(failing(Status.Code.UNAVAILABLE, 0, calls)).get(1, TimeUnit.SECONDS));
+		assertEquals(1, policy.getCalls());
+		assertEquals(0, policy.getHedges());
+	}
+
+	@Test
+	void constructorValidates() {
+		assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, DELAY));
+		assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(2, null));
+		assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(2, Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(1, null, Duration.ofMillis(-1)));
+	}
+}
@@ -0,0 +1,95 @@
+package br.pro.hashi.nfp.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+
+class SelectionTest {
+	private record Row(String name, UnaryOperator<Selection> filter, List<String> keys) {
+	}
+
+	private static final Map<String, Object> VALUES = new HashMap<>();
+
+	static {
+		VALUES.put("a", 1L);
+		VALUES.put("b", 2.5);
+		VALUES.put("c", Double.NaN);
+		VALUES.put("d", "x");
+		VALUES.put("e", -0.0);
+		VALUES.put("f", null);
+		VALUES.put("h", 2L);
+	}
+
+	private static final Row[] ROWS = {
+			new Row("equal to negative zero", s -> s.whereEqualTo("n", 0), List.of("e")),
+			new Row("equal across long and double", s -> s.whereEqualTo("n", 2.0), List.of("h")),
+			new Row("equal to null", s -> s.whereEqualTo("n", null), List.of("f")),
+			new Row("greater within rank", s -> s.whereGreaterThan("n", 1), List.of("h", "b")),
+			new Row("less puts nan first", s -> s.whereLessThan("n", 1), List.of("c", "e")),
+			new Row("string range", s -> s.whereGreaterThanOrEqualTo("n", "a"), List.of("d")),
+			new Row("not equal orders across ranks", s -> s.whereNotEqualTo("n", 1), List.of("c", "e", "h", "b", "d")),
+			new Row("in orders by key", s -> s.whereIn("n", List.of(1, "x")), List.of("a", "d")),
+			new Row("not in skips null", s -> s.whereNotIn("n", List.of(1, 2.5)), List.of("c", "e", "h", "d")),
+			new Row("descending with limit", s -> s.orderBy("n", true).limit(2), List.of("d", "b")),
+			new Row("ascending with offset", s -> s.orderBy("n").offset(4), List.of("h", "b", "d")),
+			new Row("limit to last", s -> s.orderBy("n").limitToLast(2), List.of("b", "d")),
+	};
+
+	static Firestore firestore;
+	static CollectionReference collection;
+	static List<DocumentSnapshot> documents;
+
+	@BeforeAll
+	static void setUp() {
+		firestore = FirestoreOptions.newBuilder()
+				.setProjectId("test")
+				.setCredentials(NoCredentials.getInstance())
+				.build()
+				.getService();
+		collection = firestore.collection("items");
+		documents = new ArrayList<>();
+		for (String key : Arrays.asList("h", "g", "f", "e", "d", "c", "b", "a")) {
+			DocumentSnapshot document = mock(DocumentSnapshot.class);
+			when(document.getId()).thenReturn(key);
+			when(document.contains("n")).thenReturn(VALUES.containsKey(key));
+			when(document.get("n")).thenReturn(VALUES.get(key));
+			documents.add(document);
+		}
+	}
+
+	@AfterAll
+	static void tearDown() throws Exception {
+		firestore.close();
+	}
+
+	@Test
+	void evaluateMatchesFirestore() {
+		for (Row row : ROWS) {
+			Selection selection = row.filter().apply(new Selection(collection, "key", RetryPolicy.NONE));
+			assertTrue(selection.isLocal(collection), row.name());
+			List<String> keys = new ArrayList<>();
+			for (DocumentSnapshot document : selection.evaluate(documents)) {
+				keys.add(document.getId());
+			}
+			assertEquals(row.keys(), keys, row.name());
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package br.pro.hashi.nfp.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.cloud.Timestamp;
+
+class ValuesTest {
+	private enum Color {
+		RED
+	}
+
+	private static final Timestamp EPOCH = Timestamp.ofTimeSecondsAndNanos(0, 0);
+
+	private static final Object[][] COMPARISONS = {
+			{ null, false, -1 },
+			{ false, true, -1 },
+			{ true, 0L, -1 },
+			{ Long.MAX_VALUE, EPOCH, -1 },
+			{ EPOCH, "", -1 },
+			{ null, null, 0 },
+			{ 1L, 1.0, 0 },
+			{ 1L, 1.5, -1 },
+			{ 2.5, 2L, 1 },
+			{ Long.MAX_VALUE, Long.MAX_VALUE - 1, 1 },
+			{ Double.NaN, Double.NEGATIVE_INFINITY, -1 },
+			{ Double.NaN, Long.MIN_VALUE, -1 },
+			{ Double.NaN, Double.NaN, 0 },
+			{ -0.0, 0.0, 0 },
+			{ 0L, -0.0, 0 },
+			{ "B", "a", -1 },
+			{ "a", "ab", -1 },
+			{ "\uFFFF", "\uD83D\uDE00", -1 },
+			{ "\uD83D\uDE00", "\uD83D\uDE00", 0 },
+	};
+
+	private static final Object[][] NORMALIZATIONS = {
+			{ null, null },
+			{ true, true },
+			{ "a", "a" },
+			{ EPOCH, EPOCH },
+			{ 7, 7L },
+			{ (short) 7, 7L },
+			{ (byte) 7, 7L },
+			{ 7L, 7L },
+			{ 1.5f, 1.5 },
+			{ -0.0, -0.0 },
+			{ Double.NaN, Double.NaN },
+			{ new Date(0), EPOCH },
+			{ Color.RED, "RED" },
+	};
+
+	@Test
+	void compareFollowsFirestoreOrder() {
+		for (Object[] row : COMPARISONS) {
+			String message = "%s vs %s".formatted(row[0], row[1]);
+			assertEquals(row[2], Integer.signum(Values.compare(row[0], row[1])), message);
+			assertEquals(-(int) row[2], Integer.signum(Values.compare(row[1], row[0])), message);
+		}
+	}
+
+	@Test
+	void normalizeWidensNumbersAndConvertsValues() {
+		for (Object[] row : NORMALIZATIONS) {
+			assertEquals(row[1], Values.normalize(row[0]), "%s".formatted(row[0]));
+		}
+	}
+
+	@Test
+	void normalizeRejectsOtherValues() {
+		assertSame(Values.UNSUPPORTED, Values.normalize(new Object()));
+		assertSame(Values.UNSUPPORTED, Values.normalize(List.of(1)));
+	}
+}